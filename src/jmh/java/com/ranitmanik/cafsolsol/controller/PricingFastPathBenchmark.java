@@ -0,0 +1,189 @@
+package com.ranitmanik.cafsolsol.controller;
+
+import com.ranitmanik.cafsolsol.service.PricingService;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+/**
+ * The {@code /price/fast} handler, from the shard check to the bytes handed to the servlet stream,
+ * over a mix of timed, untimed and unknown SKUs.
+ *
+ * <p>Every measurement iteration checks the bytes its thread allocated per call and fails the run
+ * above {@value #MAX_BYTES_PER_CALL}, so {@code ./gradlew jmh -PjmhIncludes=PricingFastPath} is an
+ * allocation check as well as a timing; add {@code -PjmhProfilers=gc} for the GC profiler's view.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PricingFastPathBenchmark {
+
+    // Leaves room for measurement noise; the map-based /price path allocates hundreds of bytes
+    private static final double MAX_BYTES_PER_CALL = 8.0;
+
+    private static final int SKUS = 1_000;
+    private static final int QUERIES = 1024; // power of two, so the cursor can wrap with a mask
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private PricingService pricingService;
+    private PriceQuoteWriter quoteWriter;
+    private final DiscardingResponse response = new DiscardingResponse();
+    private String[] skuIds;
+    private String[] times;
+    private int cursor;
+
+    private long allocatedBefore;
+    private int cursorBefore;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        Random random = new Random(42);
+        StringBuilder tsv = new StringBuilder("SkuID\tStartTime\tEndTime\tPrice\n");
+        for (int row = 0; row < 10 * SKUS; row++) {
+            int start = random.nextInt(1440);
+            int end = random.nextInt(1440);
+            tsv.append(String.format("u%08d\t", random.nextInt(SKUS)))
+                    .append(String.format("%02d:%02d\t", start / 60, start % 60))
+                    .append(String.format("%02d:%02d\t", end / 60, end % 60))
+                    .append(random.nextInt(50_000) / 100.0)
+                    .append('\n');
+        }
+        pricingService = new PricingService();
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsv.toString().getBytes()));
+        quoteWriter = new PriceQuoteWriter(4);
+
+        skuIds = new String[QUERIES];
+        times = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            skuIds[i] = String.format("u%08d", random.nextInt(SKUS + SKUS / 10));
+            int minute = random.nextInt(1440);
+            times[i] = i % 8 == 0 ? null : String.format("%02d:%02d", minute / 60, minute % 60);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        cursorBefore = cursor;
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkAllocation(IterationParams iteration) {
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        double perCall = (double) allocated / Math.max(1, cursor - cursorBefore);
+        if (iteration.getType() == IterationType.MEASUREMENT && perCall > MAX_BYTES_PER_CALL) {
+            throw new IllegalStateException(
+                    String.format(
+                            Locale.ROOT, "/price/fast allocated %.1f bytes per call", perCall));
+        }
+    }
+
+    @Benchmark
+    public boolean getPriceFast() throws IOException {
+        int i = cursor++ & (QUERIES - 1);
+        return quoteWriter.write(pricingService, skuIds[i], times[i], response);
+    }
+
+    /** A response that discards its body, standing in for the servlet container's buffer. */
+    private static final class DiscardingResponse implements ServletResponse {
+
+        private final ServletOutputStream out =
+                new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {}
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {}
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {}
+                };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public void setContentType(String type) {}
+
+        @Override
+        public void setContentLength(int length) {}
+
+        @Override
+        public void setContentLengthLong(long length) {}
+
+        @Override
+        public String getCharacterEncoding() {
+            return "UTF-8";
+        }
+
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {}
+
+        @Override
+        public void setBufferSize(int size) {}
+
+        @Override
+        public int getBufferSize() {
+            return 0;
+        }
+
+        @Override
+        public void flushBuffer() {}
+
+        @Override
+        public void resetBuffer() {}
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void reset() {}
+
+        @Override
+        public void setLocale(Locale locale) {}
+
+        @Override
+        public Locale getLocale() {
+            return Locale.ROOT;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/** Builds synthetic pricing TSV feeds for the benchmarks. */
+final class PricingDataGenerator {
+
+    static final String HEADER = "SkuID\tStartTime\tEndTime\tPrice\n";
+
+    private PricingDataGenerator() {}
+
+    /** Generates {@code skuCount * windowsPerSku} rows of random, overlapping windows. */
+    static byte[] generate(int skuCount, int windowsPerSku, long seed) {
+        Random random = new Random(seed);
+        StringBuilder tsv = new StringBuilder(HEADER.length() + skuCount * windowsPerSku * 32);
+        tsv.append(HEADER);
+        for (int window = 0; window < windowsPerSku; window++) {
+            for (int sku = 0; sku < skuCount; sku++) {
+                int start = random.nextInt(1439);
+                int end = start + 1 + random.nextInt(1440 - start - 1);
+                tsv.append(skuId(sku)).append('\t');
+                appendTime(tsv, start).append('\t');
+                appendTime(tsv, end).append('\t');
+                tsv.append(1 + random.nextInt(10_000)).append('.').append(random.nextInt(100));
+                tsv.append('\n');
+            }
+        }
+        return tsv.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static String skuId(int sku) {
+        return String.format("u%08d", sku);
+    }
+
+    private static StringBuilder appendTime(StringBuilder out, int minuteOfDay) {
+        int hours = minuteOfDay / 60;
+        int minutes = minuteOfDay % 60;
+        return out.append(hours < 10 ? "0" : "")
+                .append(hours)
+                .append(':')
+                .append(minutes < 10 ? "0" : "")
+                .append(minutes);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ranitmanik.cafsolsol.service;
+
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Full TSV load, from bytes to a published snapshot, for catalogs of increasing size. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PricingLoadBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int rows;
+
+    /** 1 parses on the benchmark thread; 0 uses the common ForkJoin pool. */
+    @Param({"1", "0"})
+    private int parallelism;
+
+    private byte[] tsv;
+    private PricingService pricingService;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        // Ten windows per SKU, roughly the shape of the production feed
+        tsv = PricingDataGenerator.generate(Math.max(rows / 10, 1), 10, 42);
+        pricingService = new PricingService();
+        pricingService.setLoadParallelism(parallelism);
+    }
+
+    @Benchmark
+    public PricingLoadReport loadPricingDataFromTSV() throws IOException {
+        return pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsv));
+    }
+}
@@ -0,0 +1,78 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Point lookups against SKUs with an increasing number of overlapping windows. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PricingLookupBenchmark {
+
+    private static final int SKUS = 100;
+    private static final int QUERIES = 1024; // power of two, so the cursor can wrap with a mask
+
+    @Param({"1", "100", "10000"})
+    private int windowsPerSku;
+
+    private PricingService pricingService;
+    private String[] skuIds;
+    private LocalTime[] times;
+    private String[] timeTexts;
+    private final byte[] quote = new byte[256];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        pricingService = new PricingService();
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream(PricingDataGenerator.generate(SKUS, windowsPerSku, 42)));
+
+        Random random = new Random(7);
+        skuIds = new String[QUERIES];
+        times = new LocalTime[QUERIES];
+        timeTexts = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            skuIds[i] = PricingDataGenerator.skuId(random.nextInt(SKUS));
+            times[i] = LocalTime.of(random.nextInt(24), random.nextInt(60));
+            timeTexts[i] = times[i].toString();
+        }
+    }
+
+    @Benchmark
+    public Double getPriceForSkuAtTime() {
+        int i = cursor++ & (QUERIES - 1);
+        return pricingService.getPriceForSkuAtTime(skuIds[i], times[i]);
+    }
+
+    @Benchmark
+    public Double getPriceForSku() {
+        int i = cursor++ & (QUERIES - 1);
+        return pricingService.getPriceForSku(skuIds[i]);
+    }
+
+    @Benchmark
+    public boolean skuExists() {
+        int i = cursor++ & (QUERIES - 1);
+        return pricingService.skuExists(skuIds[i]);
+    }
+
+    /** The /price/fast path; run with {@code -prof gc} to see it allocates nothing per call. */
+    @Benchmark
+    public int writePriceQuote() {
+        int i = cursor++ & (QUERIES - 1);
+        return pricingService.writePriceQuote(skuIds[i], timeTexts[i], quote);
+    }
+}
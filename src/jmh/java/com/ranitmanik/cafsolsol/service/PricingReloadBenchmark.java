@@ -0,0 +1,71 @@
+package com.ranitmanik.cafsolsol.service;
+
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Read throughput while another thread keeps reloading the catalog. The {@code lookup} score is
+ * the one to watch: it should stay close to the uncontended lookup benchmark.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PricingReloadBenchmark {
+
+    private static final int SKUS = 100_000;
+    private static final int QUERIES = 1024; // power of two, so the cursor can wrap with a mask
+
+    private PricingService pricingService;
+    private byte[] tsv;
+    private String[] skuIds;
+    private LocalTime[] times;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        tsv = PricingDataGenerator.generate(SKUS, 10, 42);
+        pricingService = new PricingService();
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsv));
+
+        Random random = new Random(7);
+        skuIds = new String[QUERIES];
+        times = new LocalTime[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            skuIds[i] = PricingDataGenerator.skuId(random.nextInt(SKUS));
+            times[i] = LocalTime.of(random.nextInt(24), random.nextInt(60));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    @Group("reload")
+    @GroupThreads(3)
+    public Double lookup(Cursor cursor) {
+        int i = cursor.next++ & (QUERIES - 1);
+        return pricingService.getPriceForSkuAtTime(skuIds[i], times[i]);
+    }
+
+    @Benchmark
+    @Group("reload")
+    @GroupThreads(1)
+    public PricingLoadReport reload() throws IOException {
+        return pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsv));
+    }
+}
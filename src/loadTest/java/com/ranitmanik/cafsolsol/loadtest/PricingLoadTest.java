@@ -0,0 +1,159 @@
+package com.ranitmanik.cafsolsol.loadtest;
+
+import com.ranitmanik.cafsolsol.Application;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * HTTP load test comparing the {@code platform} and {@code virtual} execution profiles.
+ *
+ * <p>For each profile the application is started in-process on a random port, the default pricing
+ * data is loaded, and {@code --connections} requests are kept in flight against {@code GET
+ * /api/pricing/price} for {@code --duration} seconds. Throughput, latency percentiles and the
+ * number of non-200 responses (including 503s shed by the concurrency limit) are printed per
+ * profile.
+ *
+ * <pre>
+ * ./gradlew loadTest -PloadTestArgs="--mode=both --connections=10000 --duration=30"
+ * </pre>
+ *
+ * <p>10K connections need a matching open-file limit ({@code ulimit -n}) on the machine running
+ * the test. The virtual profile needs a Java 21+ runtime, which the Gradle task provides.
+ */
+public final class PricingLoadTest {
+
+    private static final String[] SKUS = {"u00006541", "i00006111", "t12182868", "b98989000"};
+    private static final String[] TIMES = {"10:03", "10:05", "14:30", "01:00", "09:55"};
+
+    private PricingLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String mode = options.getOrDefault("mode", "both");
+        int connections = Integer.parseInt(options.getOrDefault("connections", "10000"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+
+        List<String> profiles =
+                mode.equals("both") ? List.of("platform", "virtual") : List.of(mode);
+        List<String> results = new ArrayList<>();
+        for (String profile : profiles) {
+            results.add(run(profile, connections, warmupSeconds, durationSeconds));
+        }
+
+        System.out.printf(
+                "%n%-10s %12s %10s %10s %10s %10s %10s%n",
+                "profile", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        results.forEach(System.out::println);
+    }
+
+    private static String run(String profile, int connections, int warmupSeconds, int seconds)
+            throws Exception {
+        try (ConfigurableApplicationContext context =
+                new SpringApplicationBuilder(Application.class)
+                        .profiles(profile)
+                        .properties("server.port=0")
+                        .run()) {
+            int port = context.getEnvironment().getProperty("local.server.port", Integer.class);
+            String base = "http://localhost:" + port + "/api/pricing";
+            HttpClient client =
+                    HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_1_1)
+                            .connectTimeout(Duration.ofSeconds(10))
+                            .build();
+            client.send(
+                    HttpRequest.newBuilder(URI.create(base + "/load-default"))
+                            .POST(HttpRequest.BodyPublishers.noBody())
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+
+            System.out.printf("[%s] warming up for %ds%n", profile, warmupSeconds);
+            drive(client, base, connections, warmupSeconds, new ConcurrentHistogram(3));
+
+            System.out.printf(
+                    "[%s] %d connections for %ds%n", profile, connections, seconds);
+            Histogram latencies = new ConcurrentHistogram(3);
+            long[] counts = drive(client, base, connections, seconds, latencies);
+            double throughput = counts[0] / (double) seconds;
+            return String.format(
+                    "%-10s %12.0f %10.2f %10.2f %10.2f %10.2f %10d",
+                    profile,
+                    throughput,
+                    millis(latencies.getValueAtPercentile(50)),
+                    millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()),
+                    counts[1]);
+        }
+    }
+
+    /**
+     * Keeps {@code connections} requests in flight until the time is up.
+     *
+     * @return completed requests and non-200 responses or failures
+     */
+    private static long[] drive(
+            HttpClient client, String base, int connections, int seconds, Histogram latencies)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(connections);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long sequence = 0;
+        while (System.nanoTime() < deadline) {
+            if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                continue;
+            }
+            String sku = SKUS[(int) (sequence % SKUS.length)];
+            String time = TIMES[(int) (sequence++ % TIMES.length)];
+            HttpRequest request =
+                    HttpRequest.newBuilder(
+                                    URI.create(base + "/price?skuId=" + sku + "&time=" + time))
+                            .timeout(Duration.ofSeconds(30))
+                            .build();
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete(
+                            (response, failure) -> {
+                                latencies.recordValue(System.nanoTime() - start);
+                                completed.incrementAndGet();
+                                if (failure != null || response.statusCode() != 200) {
+                                    errors.incrementAndGet();
+                                }
+                                inFlight.release();
+                            });
+        }
+        // Let the requests still in flight finish so they do not leak into the next phase
+        inFlight.tryAcquire(connections, 60, TimeUnit.SECONDS);
+        return new long[] {completed.get(), errors.get()};
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(
+                        arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ranitmanik.cafsolsol.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Caps the number of API requests executing at once and sheds the excess with a 503.
+ *
+ * <p>With virtual threads the servlet container no longer bounds concurrency through its thread
+ * pool, so this limit is what keeps a burst of slow clients from piling unbounded work onto the
+ * service. A request waits up to {@code server.concurrency.acquire-timeout-ms} for a permit before
+ * it is rejected with {@code Retry-After}, which gives callers explicit back-pressure instead of
+ * ever-growing latency. A limit of 0 disables the filter.
+ *
+ * <p>A request that goes async, such as a streamed export, keeps its permit until the async body is
+ * complete, errors or times out, so long downloads count against the limit for as long as they
+ * run. The async dispatch that finishes them is not filtered again.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public ConcurrencyLimitFilter(
+            @Value("${server.concurrency.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${server.concurrency.acquire-timeout-ms:100}") long acquireTimeoutMs) {
+        this.permits = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests) : null;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return permits == null || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Too many concurrent requests, please retry");
+            return;
+        }
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+            if (async) {
+                request.getAsyncContext().addListener(new PermitRelease());
+            }
+        } finally {
+            if (!async) {
+                permits.release();
+            }
+        }
+    }
+
+    /** Permits currently free, or -1 when the limit is disabled. */
+    public int availablePermits() {
+        return permits != null ? permits.availablePermits() : -1;
+    }
+
+    /** Gives an async request's permit back once, whichever way the request ends. */
+    private final class PermitRelease implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Going async again clears the listeners, so stay registered on the new context
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.ranitmanik.cafsolsol.controller;
 
-import com.ranitmanik.cafsolsol.model.ConfigSection;
+import com.ranitmanik.cafsolsol.model.ConfigLoadReport;
+import com.ranitmanik.cafsolsol.model.PreRenderedJson;
 import com.ranitmanik.cafsolsol.service.ConfigParser;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -21,14 +28,34 @@ public class ConfigController {
 
     @Autowired private ConfigParser configParser;
 
-    private volatile boolean configLoaded = false;
+    /** Configuration directories and files to load; the bundled config.txt when empty. */
+    @Value("${config.paths:}")
+    private List<String> configPaths;
 
     @PostMapping("/load")
-    public ResponseEntity<String> loadConfig() {
+    public ResponseEntity<?> loadConfig() {
         try {
+            if (configPaths != null && !configPaths.isEmpty()) {
+                List<Path> paths = configPaths.stream().map(String::trim).map(Path::of).toList();
+                ConfigLoadReport report = configParser.parseConfigPaths(paths);
+                return ResponseEntity.ok(report);
+            }
             ClassPathResource resource = new ClassPathResource("config.txt");
-            configParser.parseConfigFile(resource.getFile().getAbsolutePath());
-            configLoaded = true;
+            if (resource.isFile()) {
+                // Unpacked resources can be watched for changes
+                configParser.parseConfigFile(resource.getFile().getAbsolutePath());
+            } else {
+                // Inside a jar the resource is not a file and can only be streamed
+                try (InputStream inputStream = resource.getInputStream()) {
+                    configParser.parseConfigStream(inputStream);
+                }
+            }
+            List<String> warnings = configParser.getConversionErrors();
+            if (!warnings.isEmpty()) {
+                return ResponseEntity.ok(
+                        "Configuration loaded successfully with warnings: "
+                                + String.join("; ", warnings));
+            }
             return ResponseEntity.ok("Configuration loaded successfully");
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -37,41 +64,61 @@ public class ConfigController {
     }
 
     @GetMapping("/section/{sectionName}")
-    public ResponseEntity<?> getConfigSection(@PathVariable String sectionName) {
-        if (!configLoaded) {
+    public ResponseEntity<?> getConfigSection(
+            @PathVariable String sectionName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                    String ifNoneMatch) {
+        if (!configParser.isConfigLoaded()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Configuration not loaded. Please call /api/config/load first");
         }
 
-        ConfigSection section = configParser.getConfigSection(sectionName);
+        PreRenderedJson section = configParser.getSectionJson(sectionName);
         if (section == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Section '" + sectionName + "' not found");
         }
 
-        Map<String, Object> response = new HashMap<>();
-        response.putAll(section.getProperties());
-        response.putAll(section.getArrayProperties());
+        return serve(section, ifNoneMatch);
+    }
 
-        return ResponseEntity.ok(response);
+    /** A section of a file loaded from {@code config.paths}, indexed under its namespace. */
+    @GetMapping("/section/{namespace}/{sectionName}")
+    public ResponseEntity<?> getNamespacedConfigSection(
+            @PathVariable String namespace,
+            @PathVariable String sectionName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                    String ifNoneMatch) {
+        return getConfigSection(namespace + "/" + sectionName, ifNoneMatch);
     }
 
     @GetMapping("/sections")
-    public ResponseEntity<?> getAllSections() {
-        if (!configLoaded) {
+    public ResponseEntity<?> getAllSections(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                    String ifNoneMatch) {
+        if (!configParser.isConfigLoaded()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Configuration not loaded. Please call /api/config/load first");
         }
 
-        Map<String, Object> response = new HashMap<>();
-        for (Map.Entry<String, ConfigSection> entry : configParser.getAllSections().entrySet()) {
-            ConfigSection section = entry.getValue();
-            Map<String, Object> sectionData = new HashMap<>();
-            sectionData.putAll(section.getProperties());
-            sectionData.putAll(section.getArrayProperties());
-            response.put(entry.getKey(), sectionData);
-        }
+        return serve(configParser.getAllSectionsJson(), ifNoneMatch);
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * Serves JSON rendered at parse time, or 304 when the client already has it. Clients must
+     * revalidate, which costs them a round trip but never a stale configuration.
+     */
+    private static ResponseEntity<?> serve(PreRenderedJson json, String ifNoneMatch) {
+        if (json.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(json.getETag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(json.getETag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.getBody());
     }
 }
@@ -0,0 +1,83 @@
+package com.ranitmanik.cafsolsol.controller;
+
+import com.ranitmanik.cafsolsol.service.PricingService;
+import jakarta.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.http.MediaType;
+
+/**
+ * Writes {@code /price/fast} responses through a fixed pool of buffers shared by all threads.
+ *
+ * <p>The buffers are not tied to a thread, so the virtual profile, which runs every request on a
+ * new thread, reuses them as well. A request takes the first free slot, starting from one picked by
+ * its thread id to spread contention, and puts the buffer back when the response is written. Only
+ * when every slot is taken, or the id is too long for a pooled buffer, is a buffer allocated.
+ */
+final class PriceQuoteWriter {
+
+    static final int BUFFER_SIZE = 256;
+
+    private final AtomicReferenceArray<byte[]> slots;
+
+    PriceQuoteWriter(int poolSize) {
+        slots = new AtomicReferenceArray<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            slots.set(i, new byte[BUFFER_SIZE]);
+        }
+    }
+
+    /**
+     * Writes the quote as the JSON response, or returns {@code false} without touching the response
+     * when there is no quote to give (data not loaded, another shard, unknown SKU or bad time).
+     */
+    boolean write(
+            PricingService pricingService, String skuId, String time, ServletResponse response)
+            throws IOException {
+        if (!pricingService.ownsSku(skuId) || !pricingService.isDataLoaded()) {
+            return false;
+        }
+        byte[] buffer = acquire(PricingService.maxQuoteBytes(skuId.length()));
+        try {
+            int length = pricingService.writePriceQuote(skuId, time, buffer);
+            if (length < 0) {
+                return false;
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(length);
+            response.getOutputStream().write(buffer, 0, length);
+            return true;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    private byte[] acquire(int size) {
+        if (size <= BUFFER_SIZE) {
+            int start = probe();
+            for (int i = 0; i < slots.length(); i++) {
+                byte[] buffer = slots.getAndSet((start + i) % slots.length(), null);
+                if (buffer != null) {
+                    return buffer;
+                }
+            }
+        }
+        return new byte[Math.max(size, BUFFER_SIZE)];
+    }
+
+    private void release(byte[] buffer) {
+        if (buffer.length != BUFFER_SIZE) {
+            return;
+        }
+        int start = probe();
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.compareAndSet((start + i) % slots.length(), null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    private int probe() {
+        return (int) (Thread.currentThread().getId() % slots.length());
+    }
+}
@@ -1,44 +1,171 @@
 package com.ranitmanik.cafsolsol.controller;
 
+import com.ranitmanik.cafsolsol.model.PriceQuery;
+import com.ranitmanik.cafsolsol.model.PriceTimeline;
+import com.ranitmanik.cafsolsol.model.PricedSkuPage;
+import com.ranitmanik.cafsolsol.model.PricingExport;
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import com.ranitmanik.cafsolsol.model.ShardAssignment;
 import com.ranitmanik.cafsolsol.service.PricingService;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
 @RestController
 @RequestMapping("/api/pricing")
 public class PricingController {
 
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int DEFAULT_PAGE_SIZE = 1_000;
+
+    private static final String INVALID_RANGE =
+            "Invalid date or time. Use yyyy-MM-dd for dates and HH:mm for times (e.g., 10:30)";
+
+    // Raw request bodies accepted in place of a multipart file
+    private static final String TEXT_TSV_VALUE = "text/tab-separated-values";
+    private static final String APPLICATION_GZIP_VALUE = "application/gzip";
+    private static final String APPLICATION_ZSTD_VALUE = "application/zstd";
+
+    // Response buffers of /price/fast, enough for every request in flight on a typical host
+    private final PriceQuoteWriter quoteWriter =
+            new PriceQuoteWriter(4 * Runtime.getRuntime().availableProcessors());
+
     @Autowired private PricingService pricingService;
 
-    private volatile boolean pricingDataLoaded = false;
+    void setPricingService(PricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<String> uploadTSV(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(name = "effectiveDate", required = false) String effectiveDate) {
+        try {
+            return upload(file.getInputStream(), effectiveDate);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error uploading file: " + e.getMessage());
+        }
+    }
+
+    /** Streams the request body straight into the parser, skipping multipart buffering. */
+    @PostMapping(
+            value = "/upload",
+            consumes = {
+                TEXT_TSV_VALUE,
+                MediaType.TEXT_PLAIN_VALUE,
+                MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                APPLICATION_GZIP_VALUE,
+                APPLICATION_ZSTD_VALUE
+            })
+    public ResponseEntity<String> uploadTSVBody(
+            InputStream body,
+            @RequestParam(name = "effectiveDate", required = false) String effectiveDate) {
+        return upload(body, effectiveDate);
+    }
+
+    @PostMapping(value = "/delta", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<String> uploadDelta(@RequestParam("file") MultipartFile file) {
+        try {
+            return delta(file.getInputStream());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error applying delta: " + e.getMessage());
+        }
+    }
+
+    @PostMapping(
+            value = "/delta",
+            consumes = {
+                TEXT_TSV_VALUE,
+                MediaType.TEXT_PLAIN_VALUE,
+                MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                APPLICATION_GZIP_VALUE,
+                APPLICATION_ZSTD_VALUE
+            })
+    public ResponseEntity<String> uploadDeltaBody(InputStream body) {
+        return delta(body);
+    }
 
-    @PostMapping("/upload")
-    public ResponseEntity<String> uploadTSV(@RequestParam("file") MultipartFile file) {
+    /**
+     * Loads the feed as the whole dataset or, with an effective date, as the price list taking
+     * effect on that day alongside the lists already loaded.
+     */
+    private ResponseEntity<String> upload(InputStream feed, String effectiveDate) {
+        LocalDate date = null;
+        if (effectiveDate != null && !effectiveDate.isEmpty()) {
+            try {
+                date = LocalDate.parse(effectiveDate);
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("Invalid effective date. Use yyyy-MM-dd format (e.g., 2026-10-18)");
+            }
+        }
         try {
-            pricingService.loadPricingDataFromTSV(file.getInputStream());
-            pricingDataLoaded = true;
-            return ResponseEntity.ok("TSV file uploaded and processed successfully");
+            PricingLoadReport report = pricingService.loadPricingDataFromTSV(feed, date);
+            if (date != null) {
+                return ResponseEntity.ok(
+                        "Price list effective "
+                                + date
+                                + " uploaded and processed successfully ("
+                                + report
+                                + ")");
+            }
+            return ResponseEntity.ok(
+                    "TSV file uploaded and processed successfully (" + report + ")");
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error uploading file: " + e.getMessage());
         }
     }
 
+    private ResponseEntity<String> delta(InputStream feed) {
+        try {
+            PricingLoadReport report = pricingService.applyPricingDelta(feed);
+            return ResponseEntity.ok(
+                    "Pricing delta applied successfully ("
+                            + report
+                            + ", version "
+                            + pricingService.getDataVersion()
+                            + ")");
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error applying delta: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/load-default")
     public ResponseEntity<String> loadDefaultPricingData() {
         try {
             ClassPathResource resource = new ClassPathResource("pricing_data.tsv");
-            pricingService.loadPricingDataFromTSV(resource.getInputStream());
-            pricingDataLoaded = true;
-            return ResponseEntity.ok("Default pricing data loaded successfully");
+            PricingLoadReport report =
+                    pricingService.loadPricingDataFromTSV(resource.getInputStream());
+            return ResponseEntity.ok(
+                    "Default pricing data loaded successfully (" + report + ")");
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error loading default pricing data: " + e.getMessage());
@@ -48,15 +175,24 @@ public class PricingController {
     @GetMapping("/price")
     public ResponseEntity<?> getPrice(
             @RequestParam(name = "skuId", required = true) String skuId,
-            @RequestParam(name = "time", required = false) String time) {
+            @RequestParam(name = "time", required = false) String time,
+            @RequestParam(name = "at", required = false) String at) {
+
+        if (!pricingService.ownsSku(skuId)) {
+            return toOwner(skuId, "/api/pricing/price", "time", time, "at", at);
+        }
 
-        if (!pricingDataLoaded) {
+        if (!pricingService.isDataLoaded()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(
                             "Pricing data not loaded. Please call /api/pricing/load-default or"
                                     + " /api/pricing/upload first");
         }
 
+        if (at != null && !at.isEmpty()) {
+            return getPriceAt(skuId, at);
+        }
+
         if (!pricingService.skuExists(skuId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("SKU '" + skuId + "' not found");
@@ -82,4 +218,364 @@ public class PricingController {
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * The quote of {@code /price?skuId=&time=} written without allocating per request: see {@link
+     * PricingService#writePriceQuote} and {@link PriceQuoteWriter}. Only strict HH:mm times are
+     * accepted. Anything but a found quote (not loaded, another shard, unknown SKU or bad time)
+     * falls back to {@link #getPrice}, so errors and redirects are the same as there.
+     */
+    @GetMapping("/price/fast")
+    public ResponseEntity<?> getPriceFast(
+            @RequestParam(name = "skuId", required = true) String skuId,
+            @RequestParam(name = "time", required = false) String time,
+            HttpServletResponse response)
+            throws IOException {
+        if (quoteWriter.write(pricingService, skuId, time, response)) {
+            return null; // The response is already written
+        }
+        return getPrice(skuId, time, null);
+    }
+
+    /**
+     * Redirects a request for a SKU of another shard to the same {@code path} on the node serving
+     * it, with {@code skuId} and the non-null {@code params} (name, value pairs) as the query. When
+     * the nodes are not configured, answers 404 naming the owning shard, so the client can tell a
+     * foreign SKU from an unknown one.
+     */
+    private ResponseEntity<?> toOwner(String skuId, String path, String... params) {
+        URI owner = pricingService.getOwnerNode(skuId);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(
+                            "SKU '"
+                                    + skuId
+                                    + "' belongs to shard "
+                                    + pricingService.getShardOf(skuId)
+                                    + ", which is served by another instance");
+        }
+        UriComponentsBuilder location =
+                UriComponentsBuilder.fromUri(owner).path(path).queryParam("skuId", skuId);
+        for (int i = 0; i < params.length; i += 2) {
+            location.queryParamIfPresent(params[i], Optional.ofNullable(params[i + 1]));
+        }
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .location(location.encode().build().toUri())
+                .build();
+    }
+
+    /** Prices the SKU in the price list in effect on the date of {@code at}, past or future. */
+    private ResponseEntity<?> getPriceAt(String skuId, String at) {
+        LocalDateTime dateTime;
+        try {
+            dateTime = LocalDateTime.parse(at);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(
+                            "Invalid date-time format. Use yyyy-MM-ddTHH:mm (e.g.,"
+                                    + " 2026-10-18T10:30)");
+        }
+
+        if (!pricingService.skuExists(skuId, dateTime.toLocalDate())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("SKU '" + skuId + "' not found in the price list in effect at " + at);
+        }
+
+        Double price = pricingService.getPriceForSkuAt(skuId, dateTime);
+        Map<String, Object> response = new HashMap<>();
+        response.put("skuId", skuId);
+        response.put("at", at);
+        response.put("price", price != null ? price : "NOT SET");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * The SKU's resolved price timeline for a day: non-overlapping segments, each with the price
+     * that wins there. Clients can cache it and price any time locally until the data version
+     * changes, instead of polling for the price. {@code from} and {@code to} (HH:mm, {@code to}
+     * up to 24:00) restrict it to a range, which wraps past midnight when {@code to} is earlier.
+     */
+    @GetMapping("/timeline")
+    public ResponseEntity<?> getPriceTimeline(
+            @RequestParam(name = "skuId", required = true) String skuId,
+            @RequestParam(name = "date", required = false) String date,
+            @RequestParam(name = "from", required = false) String from,
+            @RequestParam(name = "to", required = false) String to) {
+        if (!pricingService.ownsSku(skuId)) {
+            return toOwner(
+                    skuId, "/api/pricing/timeline", "date", date, "from", from, "to", to);
+        }
+
+        if (!pricingService.isDataLoaded()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(
+                            "Pricing data not loaded. Please call /api/pricing/load-default or"
+                                    + " /api/pricing/upload first");
+        }
+
+        LocalDate day;
+        LocalTime fromTime;
+        LocalTime toTime;
+        try {
+            day = parseDate(date);
+            fromTime = parseTime(from);
+            toTime = parseEndTime(to);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_RANGE);
+        }
+
+        PriceTimeline timeline = pricingService.getPriceTimeline(skuId, day, fromTime, toTime);
+        if (timeline == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("SKU '" + skuId + "' not found");
+        }
+        return ResponseEntity.ok(timeline);
+    }
+
+    /**
+     * Minimum, maximum and time-weighted average price over {@code [from, to)} for each {@code
+     * skuId} given, all computed from the same price list in one call instead of a lookup per
+     * minute.
+     */
+    @GetMapping("/aggregate")
+    public ResponseEntity<?> getPriceAggregates(
+            @RequestParam(name = "skuId", required = true) List<String> skuIds,
+            @RequestParam(name = "date", required = false) String date,
+            @RequestParam(name = "from", required = false) String from,
+            @RequestParam(name = "to", required = false) String to) {
+        if (!pricingService.isDataLoaded()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(
+                            "Pricing data not loaded. Please call /api/pricing/load-default or"
+                                    + " /api/pricing/upload first");
+        }
+
+        if (skuIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Too many SKUs in one request. The limit is " + MAX_BATCH_SIZE);
+        }
+
+        try {
+            return ResponseEntity.ok(
+                    pricingService.getPriceAggregates(
+                            skuIds, parseDate(date), parseTime(from), parseEndTime(to)));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_RANGE);
+        }
+    }
+
+    /**
+     * The SKUs priced at {@code time} (now by default) in today's price list, optionally within
+     * {@code [minPrice, maxPrice]}, cheapest first. The page is streamed as one JSON object per
+     * line; the {@code X-Next-Cursor} header, when present, fetches the next page of the same data
+     * version.
+     */
+    @GetMapping("/skus")
+    public ResponseEntity<?> findPricedSkus(
+            @RequestParam(name = "time", required = false) String time,
+            @RequestParam(name = "minPrice", required = false) Double minPrice,
+            @RequestParam(name = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        if (!pricingService.isDataLoaded()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(
+                            "Pricing data not loaded. Please call /api/pricing/load-default or"
+                                    + " /api/pricing/upload first");
+        }
+
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("The limit must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("minPrice must not be greater than maxPrice");
+        }
+
+        PricedSkuPage page;
+        try {
+            page =
+                    pricingService.findPricedSkus(
+                            parseTime(time), minPrice, maxPrice, cursor, pageSize);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_RANGE);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+
+        StreamingResponseBody body =
+                out -> {
+                    Writer writer =
+                            new BufferedWriter(
+                                    new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+                    page.forEach(
+                            (skuId, price) -> {
+                                writer.write("{\"skuId\":");
+                                writeJsonString(writer, skuId);
+                                writer.write(",\"price\":");
+                                writer.write(Double.toString(price));
+                                writer.write("}\n");
+                            });
+                    writer.flush();
+                };
+        ResponseEntity.BodyBuilder response =
+                ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .header("X-Data-Version", Long.toString(page.getDataVersion()))
+                        .header("X-Priced-At", page.getTime());
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Streams every row of the price list in effect on {@code date} (today by default) as TSV,
+     * in the upload format, or as NDJSON. The body is written with chunked transfer straight from
+     * the snapshot, so memory on the server does not grow with the size of the catalog. A
+     * partitioned instance exports only its own shard, named in the {@code X-Shard} header as
+     * {@code <index>/<count>}.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportPricingData(
+            @RequestParam(name = "format", required = false, defaultValue = "tsv") String format,
+            @RequestParam(name = "date", required = false) String date) {
+        if (!pricingService.isDataLoaded()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(
+                            "Pricing data not loaded. Please call /api/pricing/load-default or"
+                                    + " /api/pricing/upload first");
+        }
+
+        PricingExport.Format exportFormat;
+        try {
+            exportFormat = PricingExport.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Unsupported export format '" + format + "'. Use tsv or ndjson");
+        }
+        LocalDate day;
+        try {
+            day = parseDate(date);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_RANGE);
+        }
+
+        PricingExport export = pricingService.exportPricingData(day, exportFormat);
+        boolean tsv = exportFormat == PricingExport.Format.TSV;
+        StreamingResponseBody body = export::writeTo;
+        ResponseEntity.BodyBuilder response =
+                ResponseEntity.ok()
+                        .contentType(
+                                tsv
+                                        ? MediaType.parseMediaType(TEXT_TSV_VALUE)
+                                        : MediaType.APPLICATION_NDJSON)
+                        .header(
+                                HttpHeaders.CONTENT_DISPOSITION,
+                                "attachment; filename=\"pricing-"
+                                        + export.getDataVersion()
+                                        + (tsv ? ".tsv" : ".ndjson")
+                                        + "\"")
+                        .header("X-Data-Version", Long.toString(export.getDataVersion()));
+        if (export.getEffectiveDate() != null) {
+            response.header("X-Effective-Date", export.getEffectiveDate());
+        }
+        ShardAssignment assignment = pricingService.getShardAssignment();
+        if (assignment.getShards() > 1) {
+            response.header("X-Shard", assignment.getShard() + "/" + assignment.getShards());
+        }
+        return response.body(body);
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+
+    private static LocalDate parseDate(String date) {
+        return date == null || date.isEmpty() ? null : LocalDate.parse(date);
+    }
+
+    /** Parses HH:mm, or returns {@code null} when absent; 24:00 is not a time of day. */
+    static LocalTime parseTime(String time) {
+        return time == null || time.isEmpty() ? null : LocalTime.parse(time);
+    }
+
+    /** Parses the end of a range, where 24:00 means the end of the day like an absent bound. */
+    static LocalTime parseEndTime(String time) {
+        return "24:00".equals(time) ? null : parseTime(time);
+    }
+
+    /** The loaded price lists: whether there is an undated one, the dated ones, and today's. */
+    @GetMapping("/versions")
+    public ResponseEntity<Map<String, Object>> getPriceLists() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("undated", pricingService.hasUndatedPriceList());
+        response.put(
+                "effectiveDates",
+                pricingService.getEffectiveDates().stream().map(LocalDate::toString).toList());
+        LocalDate inEffect = pricingService.getEffectiveDate();
+        response.put("inEffect", inEffect != null ? inEffect.toString() : null);
+        response.put("dataVersion", pricingService.getDataVersion());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * The shard this instance serves and, with {@code skuId}, the shard and node owning that SKU,
+     * so clients and load balancers can route requests without a redirect.
+     */
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Object>> getShardAssignment(
+            @RequestParam(name = "skuId", required = false) String skuId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("assignment", pricingService.getShardAssignment());
+        if (skuId != null && !skuId.isEmpty()) {
+            URI owner = pricingService.getOwnerNode(skuId);
+            response.put("skuId", skuId);
+            response.put("shard", pricingService.getShardOf(skuId));
+            response.put("local", pricingService.ownsSku(skuId));
+            response.put("node", owner != null ? owner.toString() : null);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/prices")
+    public ResponseEntity<?> getPrices(@RequestBody List<PriceQuery> queries) {
+        if (!pricingService.isDataLoaded()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(
+                            "Pricing data not loaded. Please call /api/pricing/load-default or"
+                                    + " /api/pricing/upload first");
+        }
+
+        if (queries.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Too many queries in one batch. The limit is " + MAX_BATCH_SIZE);
+        }
+
+        for (int i = 0; i < queries.size(); i++) {
+            PriceQuery query = queries.get(i);
+            if (query == null || query.getSkuId() == null || query.getSkuId().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("Query " + i + " has no skuId");
+            }
+        }
+
+        return ResponseEntity.ok(pricingService.getPrices(queries));
+    }
 }
@@ -0,0 +1,122 @@
+package com.ranitmanik.cafsolsol.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ConfigLoadReport {
+
+    private final List<FileReport> files = new ArrayList<>();
+    private long elapsedMillis;
+    private long version;
+
+    public List<FileReport> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public int getFailedCount() {
+        int failed = 0;
+        for (FileReport file : files) {
+            if (file.getError() != null) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    public int getSectionCount() {
+        int sections = 0;
+        for (FileReport file : files) {
+            sections += file.getSections();
+        }
+        return sections;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /** The configuration version published by the load. */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public void addFile(FileReport file) {
+        files.add(file);
+    }
+
+    /** Outcome of one file of a multi-file load. */
+    public static class FileReport {
+
+        private final String path;
+        private final String namespace;
+        private final int sections;
+        private final long parseMicros;
+        private final boolean cached;
+        private final String error;
+        private final List<String> warnings;
+
+        public FileReport(
+                String path,
+                String namespace,
+                int sections,
+                long parseMicros,
+                boolean cached,
+                String error,
+                List<String> warnings) {
+            this.path = path;
+            this.namespace = namespace;
+            this.sections = sections;
+            this.parseMicros = parseMicros;
+            this.cached = cached;
+            this.error = error;
+            this.warnings = warnings;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /** Prefix of the file's section names in the section index. */
+        public String getNamespace() {
+            return namespace;
+        }
+
+        /** Sections the file contributes; after an error, those of its last good parse. */
+        public int getSections() {
+            return sections;
+        }
+
+        /** Time spent reading and parsing the file, 0 when it was unchanged since the last load. */
+        public long getParseMicros() {
+            return parseMicros;
+        }
+
+        /** Whether the file was unchanged since the last load and its sections were reused. */
+        public boolean isCached() {
+            return cached;
+        }
+
+        /** Why the file could not be parsed, or {@code null} if it was. */
+        public String getError() {
+            return error;
+        }
+
+        /** Values that could not be converted to their type and were left as strings. */
+        public List<String> getWarnings() {
+            return warnings;
+        }
+    }
+}
@@ -1,41 +1,241 @@
 package com.ranitmanik.cafsolsol.model;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-public class ConfigSection {
-    private String sectionName;
-    private Map<String, String> properties;
-    private Map<String, List<String>> arrayProperties;
+/**
+ * A configuration section. Besides the raw strings, every value is converted once, when it is
+ * added, into the type it looks like: {@code Integer} or {@code Long}, {@code Boolean}, {@code
+ * Duration} ({@code 500ms}, {@code 30s}, {@code 5m}, {@code 2h}, {@code 1d} or ISO-8601 such as
+ * {@code PT30S}), {@code URI} (anything with a scheme, like {@code https://xyz.in}) or {@code
+ * String}. The typed getters only look the converted value up.
+ *
+ * <p>Values that look typed but do not convert, and empty values, stay strings and are listed in
+ * {@link #getConversionErrors()} so they can be reported when the file is parsed.
+ *
+ * <p>Sections are immutable: they are assembled with a {@link Builder}, and everything they return
+ * is unmodifiable, so a published configuration always matches its pre-rendered JSON and ETag.
+ */
+public final class ConfigSection {
 
-    public ConfigSection(String sectionName) {
-        this.sectionName = sectionName;
-        this.properties = new HashMap<>();
-        this.arrayProperties = new HashMap<>();
+    private static final Pattern INTEGER = Pattern.compile("[+-]?\\d+");
+    private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(ms|s|m|h|d)");
+
+    private final String sectionName;
+    private final Map<String, String> properties;
+    private final Map<String, List<String>> arrayProperties;
+    private final Map<String, Object> values;
+    private final List<String> conversionErrors;
+
+    private ConfigSection(Builder builder) {
+        this.sectionName = builder.sectionName;
+        this.properties = Map.copyOf(builder.properties);
+        this.arrayProperties = Map.copyOf(builder.arrayProperties);
+        this.values = Map.copyOf(builder.values);
+        this.conversionErrors = List.copyOf(builder.conversionErrors);
     }
 
     public String getSectionName() {
         return sectionName;
     }
 
-    public void setSectionName(String sectionName) {
-        this.sectionName = sectionName;
-    }
-
+    /** The raw single-valued properties, as an unmodifiable map. */
     public Map<String, String> getProperties() {
         return properties;
     }
 
-    public void addProperty(String key, String value) {
-        this.properties.put(key, value);
-    }
-
+    /** The array properties, as an unmodifiable map of unmodifiable lists. */
     public Map<String, List<String>> getArrayProperties() {
         return arrayProperties;
     }
 
-    public void addArrayProperty(String key, List<String> values) {
-        this.arrayProperties.put(key, values);
+    /** The raw value of a single-valued property, or {@code null} if there is none. */
+    public String getString(String key) {
+        return properties.get(key);
+    }
+
+    /**
+     * The property as an int, or {@code null} if there is no such property.
+     *
+     * @throws IllegalArgumentException if the value is not an integer in the int range
+     */
+    public Integer getInt(String key) {
+        return typed(key, Integer.class, "an int");
+    }
+
+    /**
+     * The property as a long, or {@code null} if there is no such property.
+     *
+     * @throws IllegalArgumentException if the value is not an integer
+     */
+    public Long getLong(String key) {
+        Object value = values.get(key);
+        if (value instanceof Integer) {
+            return ((Integer) value).longValue();
+        }
+        return typed(key, Long.class, "an integer");
+    }
+
+    /**
+     * The property as a boolean ({@code true} or {@code false}, in any case), or {@code null} if
+     * there is no such property.
+     *
+     * @throws IllegalArgumentException if the value is not a boolean
+     */
+    public Boolean getBoolean(String key) {
+        return typed(key, Boolean.class, "a boolean");
+    }
+
+    /**
+     * The property as a duration, or {@code null} if there is no such property.
+     *
+     * @throws IllegalArgumentException if the value is not a duration
+     */
+    public Duration getDuration(String key) {
+        return typed(key, Duration.class, "a duration");
+    }
+
+    /**
+     * The property as a URI, or {@code null} if there is no such property.
+     *
+     * @throws IllegalArgumentException if the value is not a URI with a scheme
+     */
+    public URI getUri(String key) {
+        return typed(key, URI.class, "a URI");
+    }
+
+    /**
+     * The property as a list: the values of an array property, or a single value as a list of one.
+     * Returns {@code null} if there is no such property.
+     */
+    public List<String> getList(String key) {
+        List<String> list = arrayProperties.get(key);
+        if (list != null) {
+            return list;
+        }
+        String value = properties.get(key);
+        return value == null ? null : List.of(value);
+    }
+
+    /** Problems found while converting the values, as {@code key: reason}. */
+    public List<String> getConversionErrors() {
+        return conversionErrors;
+    }
+
+    private <T> T typed(String key, Class<T> type, String description) {
+        Object value = values.get(key);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        throw new IllegalArgumentException(
+                "Property '" + key + "' of section '" + sectionName + "' is not " + description);
+    }
+
+    /**
+     * Collects the properties of a section while it is parsed. {@link #build} freezes them into a
+     * {@link ConfigSection}, which can then be published and shared without copying.
+     */
+    public static final class Builder {
+
+        private final String sectionName;
+        private final Map<String, String> properties = new HashMap<>();
+        private final Map<String, List<String>> arrayProperties = new HashMap<>();
+        private final Map<String, Object> values = new HashMap<>();
+        private final List<String> conversionErrors = new ArrayList<>();
+
+        public Builder(String sectionName) {
+            this.sectionName = sectionName;
+        }
+
+        public Builder addProperty(String key, String value) {
+            properties.put(key, value);
+            values.put(key, convert(key, value));
+            return this;
+        }
+
+        public Builder addArrayProperty(String key, List<String> values) {
+            List<String> list = List.copyOf(values);
+            arrayProperties.put(key, list);
+            this.values.put(key, list);
+            for (String value : values) {
+                if (value.isEmpty()) {
+                    conversionErrors.add(key + ": empty list element");
+                    break;
+                }
+            }
+            return this;
+        }
+
+        public ConfigSection build() {
+            return new ConfigSection(this);
+        }
+
+        private Object convert(String key, String value) {
+            if (value.isEmpty()) {
+                conversionErrors.add(key + ": empty value");
+                return value;
+            }
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                return Boolean.valueOf(value);
+            }
+            if (INTEGER.matcher(value).matches()) {
+                try {
+                    long number = Long.parseLong(value);
+                    if (number == (int) number) {
+                        return (int) number;
+                    }
+                    return number;
+                } catch (NumberFormatException e) {
+                    conversionErrors.add(key + ": integer out of range '" + value + "'");
+                    return value;
+                }
+            }
+            Matcher duration = DURATION.matcher(value);
+            if (duration.matches()) {
+                return toDuration(key, value, duration.group(1), duration.group(2));
+            }
+            if (value.startsWith("P") || value.startsWith("-P")) {
+                try {
+                    return Duration.parse(value);
+                } catch (DateTimeParseException e) {
+                    // Not an ISO-8601 duration, just a word starting with P
+                    return value;
+                }
+            }
+            if (value.contains("://")) {
+                try {
+                    return new URI(value);
+                } catch (URISyntaxException e) {
+                    conversionErrors.add(
+                            key + ": invalid URI '" + value + "' (" + e.getReason() + ")");
+                    return value;
+                }
+            }
+            return value;
+        }
+
+        private Object toDuration(String key, String value, String digits, String unit) {
+            try {
+                long amount = Long.parseLong(digits);
+                return switch (unit) {
+                    case "ms" -> Duration.ofMillis(amount);
+                    case "s" -> Duration.ofSeconds(amount);
+                    case "m" -> Duration.ofMinutes(amount);
+                    case "h" -> Duration.ofHours(amount);
+                    default -> Duration.ofDays(amount);
+                };
+            } catch (NumberFormatException | ArithmeticException e) {
+                conversionErrors.add(key + ": duration out of range '" + value + "'");
+                return value;
+            }
+        }
     }
 }
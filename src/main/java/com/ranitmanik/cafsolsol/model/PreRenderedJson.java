@@ -0,0 +1,66 @@
+package com.ranitmanik.cafsolsol.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A JSON response body rendered once, together with a strong ETag derived from its content. The
+ * body array is shared between requests and must not be modified.
+ */
+public class PreRenderedJson {
+
+    private final byte[] body;
+    private final String etag;
+
+    public PreRenderedJson(byte[] body) {
+        this.body = body;
+        this.etag = etagOf(body);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /** The quoted entity tag, e.g. {@code "3f2a9c0d51e7b864"}. */
+    public String getETag() {
+        return etag;
+    }
+
+    /** Whether an {@code If-None-Match} header value matches this body. */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2); // If-None-Match uses weak comparison
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder tag = new StringBuilder(18).append('"');
+            for (int i = 0; i < 8; i++) {
+                tag.append(Character.forDigit((digest[i] >> 4) & 0xf, 16));
+                tag.append(Character.forDigit(digest[i] & 0xf, 16));
+            }
+            return tag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
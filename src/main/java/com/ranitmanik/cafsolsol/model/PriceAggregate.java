@@ -0,0 +1,60 @@
+package com.ranitmanik.cafsolsol.model;
+
+/**
+ * Price statistics of one SKU over a time range. The average is weighted by the minutes each price
+ * is in effect; minutes without a price count towards neither the average nor the extremes.
+ */
+public class PriceAggregate {
+
+    private final String skuId;
+    private final Double min;
+    private final Double max;
+    private final Double average;
+    private final int pricedMinutes;
+    private final PriceQuote.Status status;
+
+    public PriceAggregate(
+            String skuId,
+            Double min,
+            Double max,
+            Double average,
+            int pricedMinutes,
+            PriceQuote.Status status) {
+        this.skuId = skuId;
+        this.min = min;
+        this.max = max;
+        this.average = average;
+        this.pricedMinutes = pricedMinutes;
+        this.status = status;
+    }
+
+    public String getSkuId() {
+        return skuId;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    /** Time-weighted average over the priced minutes of the range. */
+    public Double getAverage() {
+        return average;
+    }
+
+    /** Minutes of the range in which the SKU has a price. */
+    public int getPricedMinutes() {
+        return pricedMinutes;
+    }
+
+    /**
+     * {@code OK}, {@code NOT_SET} when no minute of the range is priced, {@code NOT_FOUND}, or
+     * {@code OTHER_SHARD} when another instance serves the SKU.
+     */
+    public PriceQuote.Status getStatus() {
+        return status;
+    }
+}
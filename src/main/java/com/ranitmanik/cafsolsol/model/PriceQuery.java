@@ -0,0 +1,29 @@
+package com.ranitmanik.cafsolsol.model;
+
+public class PriceQuery {
+    private String skuId;
+    private String time;
+
+    public PriceQuery() {}
+
+    public PriceQuery(String skuId, String time) {
+        this.skuId = skuId;
+        this.time = time;
+    }
+
+    public String getSkuId() {
+        return skuId;
+    }
+
+    public void setSkuId(String skuId) {
+        this.skuId = skuId;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public void setTime(String time) {
+        this.time = time;
+    }
+}
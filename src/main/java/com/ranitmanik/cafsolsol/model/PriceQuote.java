@@ -0,0 +1,57 @@
+package com.ranitmanik.cafsolsol.model;
+
+public class PriceQuote {
+
+    public enum Status {
+        OK,
+        NOT_FOUND,
+        NOT_SET,
+        INVALID_TIME,
+        /** The SKU belongs to a shard served by another instance; see {@code /shards}. */
+        OTHER_SHARD
+    }
+
+    private String skuId;
+    private String time;
+    private Double price;
+    private Status status;
+
+    public PriceQuote(String skuId, String time, Double price, Status status) {
+        this.skuId = skuId;
+        this.time = time;
+        this.price = price;
+        this.status = status;
+    }
+
+    public String getSkuId() {
+        return skuId;
+    }
+
+    public void setSkuId(String skuId) {
+        this.skuId = skuId;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public void setTime(String time) {
+        this.time = time;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ranitmanik.cafsolsol.model;
+
+import java.util.List;
+
+/**
+ * The resolved prices of one SKU over a day: sorted, non-overlapping segments in which a single
+ * price applies. Minutes not covered by any segment have no price.
+ */
+public class PriceTimeline {
+
+    private final String skuId;
+    private final String effectiveDate;
+    private final long dataVersion;
+    private final List<Segment> segments;
+
+    public PriceTimeline(
+            String skuId, String effectiveDate, long dataVersion, List<Segment> segments) {
+        this.skuId = skuId;
+        this.effectiveDate = effectiveDate;
+        this.dataVersion = dataVersion;
+        this.segments = segments;
+    }
+
+    public String getSkuId() {
+        return skuId;
+    }
+
+    /** Effective date of the price list the timeline comes from, or {@code null} if undated. */
+    public String getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    /** The data version the timeline was read from; a later version may change it. */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /** A price in effect from {@code start} (inclusive) to {@code end} (exclusive, up to 24:00). */
+    public static class Segment {
+
+        private final String start;
+        private final String end;
+        private final double price;
+
+        public Segment(String start, String end, double price) {
+            this.start = start;
+            this.end = end;
+            this.price = price;
+        }
+
+        public String getStart() {
+            return start;
+        }
+
+        public String getEnd() {
+            return end;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ranitmanik.cafsolsol.model;
+
+import java.io.IOException;
+
+/**
+ * One page of the SKUs priced at a time of day, cheapest first. The SKUs are not materialized:
+ * {@link #forEach} reads them from the index while the caller writes them out, so a page costs no
+ * more memory than the caller's output buffer.
+ */
+public class PricedSkuPage {
+
+    /** Receives the SKUs of a page in order. */
+    public interface Visitor {
+        void visit(String skuId, double price) throws IOException;
+    }
+
+    /** Replays the page into a visitor. */
+    public interface Traversal {
+        void forEach(Visitor visitor) throws IOException;
+    }
+
+    private final long dataVersion;
+    private final String time;
+    private final int size;
+    private final String nextCursor;
+    private final Traversal traversal;
+
+    public PricedSkuPage(
+            long dataVersion, String time, int size, String nextCursor, Traversal traversal) {
+        this.dataVersion = dataVersion;
+        this.time = time;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.traversal = traversal;
+    }
+
+    /** The data version the page was read from; its cursor only continues that version. */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    /** The time of day (HH:mm) the SKUs are priced at. */
+    public String getTime() {
+        return time;
+    }
+
+    /** Number of SKUs on the page. */
+    public int getSize() {
+        return size;
+    }
+
+    /** Cursor of the next page, or {@code null} if this is the last one. */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void forEach(Visitor visitor) throws IOException {
+        traversal.forEach(visitor);
+    }
+}
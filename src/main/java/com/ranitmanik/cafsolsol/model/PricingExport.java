@@ -0,0 +1,52 @@
+package com.ranitmanik.cafsolsol.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A full export of one price list, pinned to the list that was current when the export was
+ * opened. Nothing is written until {@link #writeTo} streams the rows to the response.
+ */
+public class PricingExport {
+
+    public enum Format {
+        TSV,
+        NDJSON
+    }
+
+    /** Writes the rows, returning how many were written. */
+    public interface Body {
+        long writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Format format;
+    private final long dataVersion;
+    private final String effectiveDate;
+    private final Body body;
+
+    public PricingExport(Format format, long dataVersion, String effectiveDate, Body body) {
+        this.format = format;
+        this.dataVersion = dataVersion;
+        this.effectiveDate = effectiveDate;
+        this.body = body;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /** The data version current when the export was opened. */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    /** Effective date of the exported price list, or {@code null} if undated. */
+    public String getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    /** Streams the rows; the stream is not closed. */
+    public long writeTo(OutputStream out) throws IOException {
+        return body.writeTo(out);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ranitmanik.cafsolsol.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PricingLoadReport {
+
+    /** Only the first few rejections are kept so a badly broken feed cannot exhaust the heap. */
+    public static final int MAX_REJECTION_MESSAGES = 100;
+
+    private long rowsLoaded;
+    private long rowsSkipped;
+    private long rowsRejected;
+    private final List<Long> rejectedLines = new ArrayList<>();
+    private final List<String> rejectionReasons = new ArrayList<>();
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public List<String> getRejections() {
+        List<String> rejections = new ArrayList<>(rejectedLines.size());
+        for (int i = 0; i < rejectedLines.size(); i++) {
+            rejections.add("line " + rejectedLines.get(i) + ": " + rejectionReasons.get(i));
+        }
+        return Collections.unmodifiableList(rejections);
+    }
+
+    public void rowLoaded() {
+        rowsLoaded++;
+    }
+
+    public void rowSkipped() {
+        rowsSkipped++;
+    }
+
+    public void rowRejected(long lineNumber, String reason) {
+        rowsRejected++;
+        if (rejectedLines.size() < MAX_REJECTION_MESSAGES) {
+            rejectedLines.add(lineNumber);
+            rejectionReasons.add(reason);
+        }
+    }
+
+    /**
+     * Adds the counts and rejections of a report for a later part of the same feed, whose line
+     * numbers are shifted by {@code lineOffset}.
+     */
+    public void add(PricingLoadReport other, long lineOffset) {
+        rowsLoaded += other.rowsLoaded;
+        rowsSkipped += other.rowsSkipped;
+        rowsRejected += other.rowsRejected;
+        for (int i = 0; i < other.rejectedLines.size(); i++) {
+            if (rejectedLines.size() == MAX_REJECTION_MESSAGES) {
+                break;
+            }
+            rejectedLines.add(other.rejectedLines.get(i) + lineOffset);
+            rejectionReasons.add(other.rejectionReasons.get(i));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return rowsLoaded
+                + " rows loaded, "
+                + rowsSkipped
+                + " rows skipped, "
+                + rowsRejected
+                + " rows rejected";
+    }
+}
@@ -1,5 +1,7 @@
 package com.ranitmanik.cafsolsol.model;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 public class PricingRecord {
@@ -7,12 +9,23 @@ public class PricingRecord {
     private LocalTime startTime;
     private LocalTime endTime;
     private double price;
+    private LocalDate effectiveDate;
 
     public PricingRecord(String skuId, LocalTime startTime, LocalTime endTime, double price) {
+        this(skuId, startTime, endTime, price, null);
+    }
+
+    public PricingRecord(
+            String skuId,
+            LocalTime startTime,
+            LocalTime endTime,
+            double price,
+            LocalDate effectiveDate) {
         this.skuId = skuId;
         this.startTime = startTime;
         this.endTime = endTime;
         this.price = price;
+        this.effectiveDate = effectiveDate;
     }
 
     public String getSkuId() {
@@ -47,7 +60,35 @@ public class PricingRecord {
         this.price = price;
     }
 
+    /**
+     * The first day of the price list this record belongs to, or {@code null} for a list loaded
+     * without an effective date, which applies until the first dated list takes effect.
+     */
+    public LocalDate getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    public void setEffectiveDate(LocalDate effectiveDate) {
+        this.effectiveDate = effectiveDate;
+    }
+
+    /**
+     * Whether the record's window covers the time of day of {@code dateTime} on or after its
+     * effective date. Whether a later price list replaced this one is not known to the record.
+     */
+    public boolean isInEffect(LocalDateTime dateTime) {
+        return (effectiveDate == null || !dateTime.toLocalDate().isBefore(effectiveDate))
+                && isTimeInRange(dateTime.toLocalTime());
+    }
+
+    /**
+     * Whether the window covers the time. A window that ends before it starts, such as 22:00 to
+     * 02:00, wraps past midnight.
+     */
     public boolean isTimeInRange(LocalTime time) {
+        if (endTime.isBefore(startTime)) {
+            return !time.isBefore(startTime) || time.isBefore(endTime);
+        }
         return !time.isBefore(startTime) && time.isBefore(endTime);
     }
 }
@@ -0,0 +1,47 @@
+package com.ranitmanik.cafsolsol.model;
+
+import java.util.List;
+
+/** The part of the catalog one instance of a partitioned deployment loads and serves. */
+public class ShardAssignment {
+
+    private final int shard;
+    private final int shards;
+    private final long hashRangeStart;
+    private final long hashRangeEnd;
+    private final List<String> nodes;
+
+    public ShardAssignment(
+            int shard, int shards, long hashRangeStart, long hashRangeEnd, List<String> nodes) {
+        this.shard = shard;
+        this.shards = shards;
+        this.hashRangeStart = hashRangeStart;
+        this.hashRangeEnd = hashRangeEnd;
+        this.nodes = nodes;
+    }
+
+    /** This instance's shard index. */
+    public int getShard() {
+        return shard;
+    }
+
+    /** Number of shards the catalog is split into; 1 when partitioning is off. */
+    public int getShards() {
+        return shards;
+    }
+
+    /** First unsigned 32-bit SKU hash owned by this instance. */
+    public long getHashRangeStart() {
+        return hashRangeStart;
+    }
+
+    /** End (exclusive) of the unsigned 32-bit SKU hashes owned by this instance. */
+    public long getHashRangeEnd() {
+        return hashRangeEnd;
+    }
+
+    /** Base URLs of all instances by shard index; empty if not configured. */
+    public List<String> getNodes() {
+        return nodes;
+    }
+}
@@ -1,68 +1,598 @@
 package com.ranitmanik.cafsolsol.service;
 
+import com.ranitmanik.cafsolsol.model.ConfigLoadReport;
 import com.ranitmanik.cafsolsol.model.ConfigSection;
+import com.ranitmanik.cafsolsol.model.PreRenderedJson;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ConfigParser {
 
-    private Map<String, ConfigSection> configSections = new HashMap<>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigParser.class);
 
+    private final AtomicReference<ConfigSnapshot> snapshot =
+            new AtomicReference<>(ConfigSnapshot.EMPTY);
+
+    /** When enabled, loaded files are watched and re-parsed in the background on change. */
+    @Value("${config.watch.enabled:false}")
+    private boolean watchEnabled;
+
+    /** Quiet period after a change before re-parsing, so multi-step editor saves parse once. */
+    @Value("${config.watch.debounce-ms:200}")
+    private long watchDebounceMs;
+
+    /** Files matched when searching a configuration directory. */
+    @Value("${config.file-glob:*.txt}")
+    private String fileGlob = "*.txt";
+
+    /**
+     * Parses of the files of the last multi-file load by file and namespace, since the cached
+     * sections are already namespaced; reused while a file's content is unchanged.
+     */
+    private final Map<FileKey, ParsedFile> parsedFiles = new ConcurrentHashMap<>();
+
+    /**
+     * Numbers every load in the order it starts. A load publishes only if no later one has
+     * published yet, so an older, slower parse racing a newer one (a request and a watcher reload,
+     * say) can never replace it.
+     */
+    private final AtomicLong loadGeneration = new AtomicLong();
+
+    private long publishedGeneration; // Guarded by this
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    private Timer parseTimer = registerMeters(new SimpleMeterRegistry());
+
+    @Autowired(required = false)
+    void setMeterRegistry(MeterRegistry meterRegistry) {
+        parseTimer = registerMeters(meterRegistry);
+    }
+
+    void setWatchEnabled(boolean enabled) {
+        watchEnabled = enabled;
+    }
+
+    void setWatchDebounceMs(long debounceMs) {
+        watchDebounceMs = debounceMs;
+    }
+
+    /**
+     * Parses the file and publishes it as the new configuration. In watch mode the file is then
+     * watched, replacing anything watched before.
+     */
     public void parseConfigFile(String filePath) throws IOException {
-        configSections.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            ConfigSection currentSection = null;
+        Path path = Path.of(filePath).toAbsolutePath();
+        load(path);
+        if (watchEnabled) {
+            watch(Map.of(path.getParent(), Set.of(path.getFileName())), () -> load(path));
+        }
+    }
 
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
+    /**
+     * Parses the configuration from a stream, such as a resource packaged in a jar, and publishes
+     * it. There is no file to watch, so anything watched before stops being watched.
+     */
+    public void parseConfigStream(InputStream inputStream) throws IOException {
+        long generation = loadGeneration.incrementAndGet();
+        long start = System.nanoTime();
+        Map<String, ConfigSection> configSections =
+                parseSections(
+                        new BufferedReader(
+                                new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+        logConversionErrors("stream", configSections);
+        stopWatching();
+        publish(configSections, generation);
+        parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
 
-                // Skip empty lines
-                if (line.isEmpty()) {
-                    continue;
+    /**
+     * Parses every file of the given directories and files in parallel and publishes them as one
+     * configuration. Each section is indexed as {@code namespace/section}, where the namespace of a
+     * listed file is its name without extension and that of a file found in a directory is its
+     * relative path without extension, with dots between directories ({@code team.billing}).
+     * Directories are searched recursively for files matching {@code config.file-glob}.
+     *
+     * <p>A file that is unchanged since the previous load (same size and modification time) is not
+     * read again, so re-running a load over hundreds of files costs little more than listing them.
+     * A file that fails to parse is reported and keeps the sections of its last good parse, if
+     * any; the other files are published regardless. In watch mode the directories are watched and
+     * any change re-runs the load.
+     */
+    public ConfigLoadReport parseConfigPaths(List<Path> paths) throws IOException {
+        List<Path> absolutePaths = paths.stream().map(Path::toAbsolutePath).toList();
+        ConfigLoadReport report = loadPaths(absolutePaths);
+        if (watchEnabled) {
+            watch(watchedDirectories(absolutePaths), () -> loadPaths(absolutePaths));
+        }
+        return report;
+    }
+
+    private void load(Path path) throws IOException {
+        long generation = loadGeneration.incrementAndGet();
+        long start = System.nanoTime();
+        Map<String, ConfigSection> configSections;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path.toFile()))) {
+            configSections = parseSections(reader);
+        }
+        logConversionErrors(path, configSections);
+        publish(configSections, generation);
+        parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private ConfigLoadReport loadPaths(List<Path> paths) throws IOException {
+        long generation = loadGeneration.incrementAndGet();
+        long start = System.nanoTime();
+        Map<Path, String> files = new LinkedHashMap<>();
+        Map<String, Path> namespaces = new HashMap<>();
+        List<ConfigLoadReport.FileReport> conflicts = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                PathMatcher matcher = path.getFileSystem().getPathMatcher("glob:" + fileGlob);
+                try (Stream<Path> walk = Files.walk(path)) {
+                    for (Path file :
+                            walk.filter(Files::isRegularFile)
+                                    .filter(file -> matcher.matches(file.getFileName()))
+                                    .sorted()
+                                    .toList()) {
+                        addFile(files, namespaces, conflicts, file, namespaceOf(path, file));
+                    }
                 }
+            } else {
+                addFile(files, namespaces, conflicts, path, namespaceOf(null, path));
+            }
+        }
+
+        List<ParseResult> results =
+                files.entrySet().parallelStream()
+                        .map(file -> parseFile(file.getKey(), file.getValue()))
+                        .toList();
+
+        ConfigLoadReport report = new ConfigLoadReport();
+        Map<String, ConfigSection> configSections = new HashMap<>();
+        Map<String, PreRenderedJson> sectionJson = new HashMap<>();
+        for (ParseResult result : results) {
+            report.addFile(result.report());
+            if (result.parsed() != null) {
+                configSections.putAll(result.parsed().sections());
+                sectionJson.putAll(result.parsed().sectionJson());
+            }
+        }
+        conflicts.forEach(report::addFile);
+        // Forget the files that are no longer part of the load, or no longer under that namespace
+        Set<FileKey> loaded = new HashSet<>();
+        files.forEach((file, namespace) -> loaded.add(new FileKey(file, namespace)));
+        parsedFiles.keySet().retainAll(loaded);
+
+        report.setVersion(publish(configSections, sectionJson, generation));
+        long elapsed = System.nanoTime() - start;
+        report.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        parseTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        if (report.getFailedCount() > 0) {
+            LOGGER.warn(
+                    "{} of {} configuration files could not be loaded",
+                    report.getFailedCount(),
+                    report.getFileCount());
+        }
+        return report;
+    }
+
+    private static void addFile(
+            Map<Path, String> files,
+            Map<String, Path> namespaces,
+            List<ConfigLoadReport.FileReport> conflicts,
+            Path file,
+            String namespace) {
+        Path owner = namespaces.putIfAbsent(namespace, file);
+        if (owner == null) {
+            files.put(file, namespace);
+        } else if (!owner.equals(file)) {
+            conflicts.add(
+                    new ConfigLoadReport.FileReport(
+                            file.toString(),
+                            namespace,
+                            0,
+                            0,
+                            false,
+                            "Namespace '" + namespace + "' is already used by " + owner,
+                            List.of()));
+        }
+    }
+
+    /** The namespace of a file: its path below {@code root} (or its name) without extension. */
+    private static String namespaceOf(Path root, Path file) {
+        Path relative = root == null ? file.getFileName() : root.relativize(file);
+        String name = relative.toString().replace(relative.getFileSystem().getSeparator(), ".");
+        String fileName = relative.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        if (extension <= 0) {
+            return name;
+        }
+        return name.substring(0, name.length() - fileName.length() + extension);
+    }
+
+    /**
+     * Parses one file of a multi-file load, or reuses its last parse under the same namespace when
+     * the content is byte for byte the same. The content is compared by digest rather than by size
+     * and modification time, which miss a same-size edit within the file system's timestamp
+     * granularity; reading a configuration file is cheap next to parsing and rendering it.
+     */
+    private ParseResult parseFile(Path file, String namespace) {
+        FileKey key = new FileKey(file, namespace);
+        ParsedFile cached = parsedFiles.get(key);
+        long start = System.nanoTime();
+        try {
+            byte[] content = Files.readAllBytes(file);
+            byte[] digest = digest(content);
+            if (cached != null && Arrays.equals(cached.digest(), digest)) {
+                return new ParseResult(
+                        cached, fileReport(file, namespace, cached, 0, true, null));
+            }
+            Map<String, ConfigSection> sections;
+            try (BufferedReader reader =
+                    new BufferedReader(
+                            new InputStreamReader(
+                                    new ByteArrayInputStream(content),
+                                    StandardCharsets.UTF_8.newDecoder()))) {
+                sections = parseSections(reader);
+            }
+            Map<String, ConfigSection> namespaced = new HashMap<>();
+            for (Map.Entry<String, ConfigSection> section : sections.entrySet()) {
+                namespaced.put(namespace + "/" + section.getKey(), section.getValue());
+            }
+            logConversionErrors(file, namespaced);
+            ParsedFile parsed =
+                    new ParsedFile(
+                            digest, namespaced, ConfigSnapshot.renderSections(namespaced));
+            parsedFiles.put(key, parsed);
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            return new ParseResult(
+                    parsed, fileReport(file, namespace, parsed, micros, false, null));
+        } catch (IOException | UncheckedIOException e) {
+            // Keep serving the last good parse of the file, if there is one
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            return new ParseResult(
+                    cached, fileReport(file, namespace, cached, micros, false, error));
+        }
+    }
+
+    private static ConfigLoadReport.FileReport fileReport(
+            Path file,
+            String namespace,
+            ParsedFile parsed,
+            long parseMicros,
+            boolean cached,
+            String error) {
+        int sections = parsed == null ? 0 : parsed.sections().size();
+        List<String> warnings = parsed == null ? List.of() : conversionErrors(parsed.sections());
+        return new ConfigLoadReport.FileReport(
+                file.toString(), namespace, sections, parseMicros, cached, error, warnings);
+    }
+
+    /** The values of the sections that could not be converted, as {@code section: key: reason}. */
+    private static List<String> conversionErrors(Map<String, ConfigSection> sections) {
+        List<String> errors = new ArrayList<>();
+        for (Map.Entry<String, ConfigSection> section : sections.entrySet()) {
+            for (String error : section.getValue().getConversionErrors()) {
+                errors.add(section.getKey() + ": " + error);
+            }
+        }
+        Collections.sort(errors);
+        return errors;
+    }
+
+    private static void logConversionErrors(Object source, Map<String, ConfigSection> sections) {
+        for (String error : conversionErrors(sections)) {
+            LOGGER.warn("Configuration value in {} left as a string: {}", source, error);
+        }
+    }
+
+    private static Map<String, ConfigSection> parseSections(BufferedReader reader)
+            throws IOException {
+        Map<String, ConfigSection.Builder> configSections = new HashMap<>();
+        String line;
+        ConfigSection.Builder currentSection = null;
+
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+
+            // Skip empty lines
+            if (line.isEmpty()) {
+                continue;
+            }
 
-                // Check if line is a section header (contains no '=' sign)
-                if (!line.contains("=")) {
-                    currentSection = new ConfigSection(line);
-                    configSections.put(line, currentSection);
-                } else if (currentSection != null) {
-                    // Parse property line
-                    String[] parts = line.split("=", 2);
-                    if (parts.length == 2) {
-                        String key = parts[0].trim();
-                        String value = parts[1].trim();
-
-                        // Check if value contains commas (array property)
-                        if (value.contains(",")) {
-                            List<String> values =
-                                    Arrays.stream(value.split(","))
-                                            .map(String::trim)
-                                            .collect(Collectors.toList());
-                            currentSection.addArrayProperty(key, values);
-                        } else {
-                            currentSection.addProperty(key, value);
-                        }
+            // Check if line is a section header (contains no '=' sign)
+            if (!line.contains("=")) {
+                currentSection = new ConfigSection.Builder(line);
+                configSections.put(line, currentSection);
+            } else if (currentSection != null) {
+                // Parse property line
+                String[] parts = line.split("=", 2);
+                if (parts.length == 2) {
+                    String key = parts[0].trim();
+                    String value = parts[1].trim();
+
+                    // Check if value contains commas (array property)
+                    if (value.contains(",")) {
+                        List<String> values =
+                                Arrays.stream(value.split(","))
+                                        .map(String::trim)
+                                        .collect(Collectors.toList());
+                        currentSection.addArrayProperty(key, values);
+                    } else {
+                        currentSection.addProperty(key, value);
                     }
                 }
             }
         }
+        Map<String, ConfigSection> sections = new HashMap<>();
+        for (Map.Entry<String, ConfigSection.Builder> section : configSections.entrySet()) {
+            sections.put(section.getKey(), section.getValue().build());
+        }
+        return sections;
+    }
+
+    private void publish(Map<String, ConfigSection> sections, long generation) {
+        publish(sections, ConfigSnapshot.renderSections(sections), generation);
+    }
+
+    /**
+     * Publishes the sections unless a load that started later has already been published, and
+     * returns the version being served.
+     */
+    private synchronized long publish(
+            Map<String, ConfigSection> sections,
+            Map<String, PreRenderedJson> sectionJson,
+            long generation) {
+        if (generation < publishedGeneration) {
+            LOGGER.info("Dropped a configuration load superseded by a newer one");
+            return snapshot.get().version();
+        }
+        publishedGeneration = generation;
+        long version = snapshot.get().version() + 1;
+        snapshot.set(new ConfigSnapshot(sections, sectionJson, version, true));
+        return version;
     }
 
     public ConfigSection getConfigSection(String sectionName) {
-        return configSections.get(sectionName);
+        return snapshot.get().sections().get(sectionName);
     }
 
+    /** Returns the sections of the current configuration as an unmodifiable map. */
     public Map<String, ConfigSection> getAllSections() {
-        return new HashMap<>(configSections);
+        return snapshot.get().sections();
+    }
+
+    /** The section as pre-rendered JSON, or {@code null} if there is no such section. */
+    public PreRenderedJson getSectionJson(String sectionName) {
+        return snapshot.get().sectionJson(sectionName);
+    }
+
+    /** All sections as pre-rendered JSON, keyed by section name. */
+    public PreRenderedJson getAllSectionsJson() {
+        return snapshot.get().allSectionsJson();
+    }
+
+    /**
+     * Values of the current configuration that looked typed but could not be converted, or were
+     * empty, as {@code section: key: reason}.
+     */
+    public List<String> getConversionErrors() {
+        return conversionErrors(snapshot.get().sections());
     }
 
     public boolean sectionExists(String sectionName) {
-        return configSections.containsKey(sectionName);
+        return snapshot.get().sections().containsKey(sectionName);
+    }
+
+    public boolean isConfigLoaded() {
+        return snapshot.get().isLoaded();
+    }
+
+    /** Increases by one with every configuration that is published, including hot reloads. */
+    public long getConfigVersion() {
+        return snapshot.get().version();
+    }
+
+    /** Every directory below the listed directories, and the parent of each listed file. */
+    private static Map<Path, Set<Path>> watchedDirectories(List<Path> paths) throws IOException {
+        Map<Path, Set<Path>> directories = new HashMap<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(Files::isDirectory).forEach(dir -> directories.put(dir, null));
+                }
+            } else if (!directories.containsKey(path.getParent())
+                    || directories.get(path.getParent()) != null) {
+                directories
+                        .computeIfAbsent(path.getParent(), dir -> new HashSet<>())
+                        .add(path.getFileName());
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * Watches the given directories and runs {@code reload} whenever one of the named files, or
+     * any file for a directory mapped to {@code null}, is created or modified. Saves that replace a
+     * file through a rename show up as a create, so they are picked up too.
+     */
+    private synchronized void watch(Map<Path, Set<Path>> directories, Reload reload)
+            throws IOException {
+        stopWatching();
+        WatchService service = FileSystems.getDefault().newWatchService();
+        for (Path directory : directories.keySet()) {
+            register(service, directory);
+        }
+        watchService = service;
+        // The watcher thread adds directories created later, so it gets its own copy
+        Map<Path, Set<Path>> watched = new HashMap<>(directories);
+        watcher = new Thread(() -> watchLoop(service, watched, reload), "config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watchLoop(WatchService service, Map<Path, Set<Path>> directories, Reload reload) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = pollChanges(service, key, directories);
+                if (!key.reset()) {
+                    LOGGER.warn("Stopped watching {}: the directory is gone", key.watchable());
+                    continue;
+                }
+                if (!changed) {
+                    continue;
+                }
+                // Wait until the burst of events from one save has settled
+                while ((key = service.poll(watchDebounceMs, TimeUnit.MILLISECONDS)) != null) {
+                    pollChanges(service, key, directories);
+                    key.reset();
+                }
+                try {
+                    reload.run();
+                    LOGGER.info("Reloaded configuration from {}", directories.keySet());
+                } catch (IOException | UncheckedIOException e) {
+                    // Keep serving the last good configuration
+                    LOGGER.warn("Could not reload configuration: {}", e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watching was stopped
+        }
+    }
+
+    /**
+     * Drains the key's events and tells whether any of them concerns the configuration. A
+     * directory created inside a recursively watched one is watched from then on, with everything
+     * below it.
+     */
+    private static boolean pollChanges(
+            WatchService service, WatchKey key, Map<Path, Set<Path>> directories) {
+        Path directory = (Path) key.watchable();
+        Set<Path> files = directories.get(directory);
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+            } else if (files == null) {
+                changed = true;
+                Path child = directory.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(child)) {
+                    registerTree(service, child, directories);
+                }
+            } else if (files.contains((Path) event.context())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static void registerTree(
+            WatchService service, Path root, Map<Path, Set<Path>> directories) {
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path directory : walk.filter(Files::isDirectory).toList()) {
+                register(service, directory);
+                directories.put(directory, null);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warn("Could not watch new directory {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static void register(WatchService service, Path directory) throws IOException {
+        directory.register(
+                service,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    @PreDestroy
+    synchronized void stopWatching() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.warn("Could not close the configuration watcher: {}", e.getMessage());
+        }
+        watcher.interrupt();
+        watchService = null;
+        watcher = null;
+    }
+
+    /** A re-run of the last load, triggered by the watcher. */
+    private interface Reload {
+        void run() throws IOException;
+    }
+
+    private static byte[] digest(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required on every JVM", e);
+        }
+    }
+
+    /** A file as loaded under one namespace. */
+    private record FileKey(Path file, String namespace) {}
+
+    /**
+     * A file's sections as of its last successful parse, with their rendered JSON and the digest
+     * of the content they were parsed from.
+     */
+    private record ParsedFile(
+            byte[] digest,
+            Map<String, ConfigSection> sections,
+            Map<String, PreRenderedJson> sectionJson) {}
+
+    private record ParseResult(ParsedFile parsed, ConfigLoadReport.FileReport report) {}
+
+    private Timer registerMeters(MeterRegistry meterRegistry) {
+        Gauge.builder("config.sections", snapshot, s -> s.get().sections().size())
+                .description("Sections in the loaded configuration")
+                .register(meterRegistry);
+        return Timer.builder("config.parse")
+                .description("Duration of configuration file parses")
+                .register(meterRegistry);
     }
 }
@@ -0,0 +1,113 @@
+package com.ranitmanik.cafsolsol.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ranitmanik.cafsolsol.model.ConfigSection;
+import com.ranitmanik.cafsolsol.model.PreRenderedJson;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One fully parsed configuration, published by {@link ConfigParser} with a single reference swap so
+ * readers never lock and never see a configuration that is still being parsed.
+ *
+ * <p>The API responses for every section and for the full section list are rendered to JSON before
+ * the snapshot is published, since the content only changes on reload; serving them is a byte
+ * copy.
+ */
+final class ConfigSnapshot {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(Collections.emptyMap(), 0, false);
+
+    private final Map<String, ConfigSection> sections;
+    private final Map<String, PreRenderedJson> sectionJson;
+    private final PreRenderedJson allSectionsJson;
+    private final long version;
+    private final boolean loaded;
+
+    ConfigSnapshot(Map<String, ConfigSection> sections, long version, boolean loaded) {
+        this(sections, renderSections(sections), version, loaded);
+    }
+
+    /**
+     * Creates a snapshot from sections that were already rendered one by one, so a reload only
+     * renders the sections that changed. The full section list is stitched from the parts.
+     */
+    ConfigSnapshot(
+            Map<String, ConfigSection> sections,
+            Map<String, PreRenderedJson> sectionJson,
+            long version,
+            boolean loaded) {
+        this.sections = Map.copyOf(sections);
+        this.sectionJson = Map.copyOf(sectionJson);
+        this.allSectionsJson = join(sectionJson);
+        this.version = version;
+        this.loaded = loaded;
+    }
+
+    Map<String, ConfigSection> sections() {
+        return sections;
+    }
+
+    /** The rendered section, or {@code null} if there is no such section. */
+    PreRenderedJson sectionJson(String sectionName) {
+        return sectionJson.get(sectionName);
+    }
+
+    PreRenderedJson allSectionsJson() {
+        return allSectionsJson;
+    }
+
+    long version() {
+        return version;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    static Map<String, PreRenderedJson> renderSections(Map<String, ConfigSection> sections) {
+        Map<String, PreRenderedJson> rendered = new HashMap<>();
+        for (Map.Entry<String, ConfigSection> entry : sections.entrySet()) {
+            rendered.put(entry.getKey(), render(entry.getValue()));
+        }
+        return rendered;
+    }
+
+    /** Renders a section as the API returns it: plain and array properties in one object. */
+    static PreRenderedJson render(ConfigSection section) {
+        Map<String, Object> response = new HashMap<>();
+        response.putAll(section.getProperties());
+        response.putAll(section.getArrayProperties());
+        return new PreRenderedJson(toJson(response));
+    }
+
+    /** Builds {@code {"name": <section>, ...}} from the rendered sections without re-rendering. */
+    private static PreRenderedJson join(Map<String, PreRenderedJson> sectionJson) {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        json.write('{');
+        for (Map.Entry<String, PreRenderedJson> entry : sectionJson.entrySet()) {
+            if (json.size() > 1) {
+                json.write(',');
+            }
+            json.writeBytes(toJson(entry.getKey()));
+            json.write(':');
+            json.writeBytes(entry.getValue().getBody());
+        }
+        json.write('}');
+        return new PreRenderedJson(json.toByteArray());
+    }
+
+    private static byte[] toJson(Object value) {
+        try {
+            return MAPPER.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            // Strings and maps of strings and string lists always serialize
+            throw new IllegalStateException("Could not render configuration as JSON", e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Price in effect "now" for every SKU of one snapshot, indexed by SKU ordinal.
+ *
+ * <p>At build time the segment breaks of all SKUs are bucketed by minute of the day, so moving the
+ * cache forward only touches the SKUs whose price actually changes at the minutes crossed. Reads
+ * are a single array access; they are only trusted while {@link #isCurrent} holds, i.e. until the
+ * wall clock moves past the minute the cache was last advanced to.
+ *
+ * <p>Wrapping past midnight fills a new array and swaps it in with one write, so a reader never
+ * sees a price reset while the day is replayed.
+ */
+final class CurrentPriceCache {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final PricingSnapshot snapshot;
+    private volatile AtomicLongArray prices;
+    private final int[] changeOffsets; // per minute of the day, into changeSkus / changeSegments
+    private final int[] changeSkus;
+    private final int[] changeSegments;
+    private int minuteOfDay = -1;
+    private volatile long epochMinute = Long.MIN_VALUE;
+
+    CurrentPriceCache(PricingSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int skuCount = snapshot.skuCount();
+        prices = unpriced(skuCount);
+
+        int segmentCount = snapshot.segmentCount();
+        changeOffsets = new int[MINUTES_PER_DAY + 1];
+        for (int segment = 0; segment < segmentCount; segment++) {
+            changeOffsets[snapshot.segmentBreak(segment) + 1]++;
+        }
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            changeOffsets[minute + 1] += changeOffsets[minute];
+        }
+        int[] cursor = new int[MINUTES_PER_DAY];
+        System.arraycopy(changeOffsets, 0, cursor, 0, MINUTES_PER_DAY);
+        changeSkus = new int[segmentCount];
+        changeSegments = new int[segmentCount];
+        for (int sku = 0; sku < skuCount; sku++) {
+            for (int segment = snapshot.firstSegment(sku);
+                    segment < snapshot.endSegment(sku);
+                    segment++) {
+                int slot = cursor[snapshot.segmentBreak(segment)]++;
+                changeSkus[slot] = sku;
+                changeSegments[slot] = segment;
+            }
+        }
+    }
+
+    PricingSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Moves the cache to {@code minuteOfDay}. Going forward applies only the changes at the minutes
+     * crossed; wrapping past midnight replays the new day into a fresh array before publishing it.
+     */
+    synchronized void advanceTo(int minuteOfDay, long epochMinute) {
+        if (minuteOfDay < this.minuteOfDay) {
+            AtomicLongArray replayed = unpriced(prices.length());
+            apply(replayed, 0, minuteOfDay);
+            prices = replayed;
+        } else {
+            apply(prices, this.minuteOfDay + 1, minuteOfDay);
+        }
+        this.minuteOfDay = minuteOfDay;
+        this.epochMinute = epochMinute;
+    }
+
+    /** Writes the price changes at minutes {@code [fromMinute, toMinute]} into {@code target}. */
+    private void apply(AtomicLongArray target, int fromMinute, int toMinute) {
+        for (int minute = fromMinute; minute <= toMinute; minute++) {
+            for (int i = changeOffsets[minute]; i < changeOffsets[minute + 1]; i++) {
+                target.set(
+                        changeSkus[i],
+                        Double.doubleToRawLongBits(snapshot.segmentPrice(changeSegments[i])));
+            }
+        }
+    }
+
+    private static AtomicLongArray unpriced(int skuCount) {
+        AtomicLongArray prices = new AtomicLongArray(skuCount);
+        for (int sku = 0; sku < skuCount; sku++) {
+            prices.set(sku, Double.doubleToRawLongBits(Double.NaN));
+        }
+        return prices;
+    }
+
+    boolean isCurrent(long epochMinute) {
+        return this.epochMinute == epochMinute;
+    }
+
+    /** Returns the cached price of the SKU, or {@code NaN} if none is set at the cached minute. */
+    double price(int sku) {
+        return Double.longBitsToDouble(prices.get(sku));
+    }
+}
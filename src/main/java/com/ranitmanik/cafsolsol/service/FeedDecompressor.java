@@ -0,0 +1,46 @@
+package com.ranitmanik.cafsolsol.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Recognizes gzip and zstd pricing feeds by their magic bytes and decompresses them on the fly.
+ *
+ * <p>Only a window of the compressed and decompressed data is ever held in memory, so a feed of
+ * several GB is parsed without being expanded on disk or on the heap first. Anything else is
+ * passed through unchanged.
+ */
+final class FeedDecompressor {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_MAGIC = 0x1f8b;
+    private static final int ZSTD_MAGIC = 0x28b52ffd;
+
+    private FeedDecompressor() {}
+
+    /** Returns a stream of the decompressed feed; closing it closes {@code inputStream}. */
+    static InputStream decompress(InputStream inputStream) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        in.mark(4);
+        byte[] magic = in.readNBytes(4);
+        in.reset();
+
+        if (magic.length >= 2 && ((magic[0] & 0xff) << 8 | (magic[1] & 0xff)) == GZIP_MAGIC) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        if (magic.length == 4 && bigEndianInt(magic) == ZSTD_MAGIC) {
+            return new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    private static int bigEndianInt(byte[] bytes) {
+        return (bytes[0] & 0xff) << 24
+                | (bytes[1] & 0xff) << 16
+                | (bytes[2] & 0xff) << 8
+                | (bytes[3] & 0xff);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ranitmanik.cafsolsol.service;
+
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses a pricing feed on a {@link ForkJoinPool}.
+ *
+ * <p>The calling thread reads the stream into line-aligned chunks and submits each one as soon as
+ * it is read, so parsing overlaps with I/O. Every chunk is parsed into its own {@link
+ * PricingSnapshot.Builder} and appended to the target builder in stream order, which keeps the
+ * rows of every SKU in file order for the "last row wins" rule.
+ *
+ * <p>At most two chunks per pool thread are in flight: the reader appends finished chunks as soon
+ * as they are next in order and waits for the oldest one before reading more. A chunk is dropped
+ * once appended, so memory holds the target builder plus a bounded window of the feed, however
+ * large it is and however fast it can be read.
+ */
+final class ParallelPricingLoader {
+
+    static final int DEFAULT_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+    private final PricingShard shard;
+
+    ParallelPricingLoader(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_BYTES, null);
+    }
+
+    ParallelPricingLoader(ForkJoinPool pool, int chunkBytes) {
+        this(pool, chunkBytes, null);
+    }
+
+    /** A loader that keeps only the rows of SKUs owned by {@code shard}, when not {@code null}. */
+    ParallelPricingLoader(ForkJoinPool pool, int chunkBytes, PricingShard shard) {
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+        this.shard = shard;
+    }
+
+    /** Parses the whole stream into {@code builder}. The stream is not closed. */
+    PricingLoadReport load(InputStream inputStream, PricingSnapshot.Builder builder)
+            throws IOException {
+        int maxInFlight = 2 * pool.getParallelism();
+        Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>(maxInFlight);
+        PricingLoadReport report = new PricingLoadReport();
+        long lineOffset = 0;
+        boolean first = true;
+        byte[] carry = new byte[0];
+        int carryLength = 0;
+        while (true) {
+            while (inFlight.size() >= maxInFlight
+                    || (!inFlight.isEmpty() && inFlight.peekFirst().isDone())) {
+                lineOffset = append(inFlight.pollFirst(), builder, report, lineOffset);
+            }
+            // A line longer than a chunk doubles the buffer until it fits
+            byte[] bytes = new byte[Math.max(chunkBytes, carryLength * 2)];
+            System.arraycopy(carry, 0, bytes, 0, carryLength);
+            int read = inputStream.readNBytes(bytes, carryLength, bytes.length - carryLength);
+            int length = carryLength + read;
+            boolean endOfStream = length < bytes.length;
+            int cut = endOfStream ? length : lastNewline(bytes, length) + 1;
+            if (cut == 0 && !endOfStream) {
+                carry = bytes;
+                carryLength = length;
+                continue;
+            }
+            Chunk chunk = new Chunk(bytes, cut, first, shard);
+            first = false;
+            inFlight.addLast(pool.submit(chunk::parse));
+            if (endOfStream) {
+                break;
+            }
+            carryLength = length - cut;
+            carry = new byte[carryLength];
+            System.arraycopy(bytes, cut, carry, 0, carryLength);
+        }
+
+        while (!inFlight.isEmpty()) {
+            lineOffset = append(inFlight.pollFirst(), builder, report, lineOffset);
+        }
+        return report;
+    }
+
+    /**
+     * Waits for the chunk and appends it, returning the line offset of the next one. The task is
+     * then unreferenced, which releases its rows.
+     */
+    private static long append(
+            ForkJoinTask<Chunk> task,
+            PricingSnapshot.Builder builder,
+            PricingLoadReport report,
+            long lineOffset) {
+        Chunk chunk = task.join();
+        builder.append(chunk.rows);
+        report.add(chunk.report, lineOffset);
+        return lineOffset + chunk.newlines;
+    }
+
+    private static int lastNewline(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Chunk {
+
+        private byte[] bytes;
+        private final int length;
+        private final boolean first;
+        private final PricingShard shard;
+        private final PricingSnapshot.Builder rows = new PricingSnapshot.Builder();
+        private PricingLoadReport report;
+        private long newlines;
+
+        Chunk(byte[] bytes, int length, boolean first, PricingShard shard) {
+            this.bytes = bytes;
+            this.length = length;
+            this.first = first;
+            this.shard = shard;
+        }
+
+        Chunk parse() {
+            PricingTsvParser parser =
+                    new PricingTsvParser(shard == null ? rows : shard.filter(rows));
+            report = parser.parseChunk(bytes, 0, length, first);
+            newlines = parser.chunkNewlines();
+            bytes = null; // The raw chunk is not needed once its rows are extracted
+            return this;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ranitmanik.cafsolsol.service;
+
+/**
+ * Encodes prices, times of day and JSON strings straight into byte arrays, for responses and
+ * exports that must not allocate per value.
+ *
+ * <p>A price is written with the fewest decimals {@code d} for which {@code units / 10^d} gives
+ * back exactly the same double, which is the same test {@link PricingTsvParser} relies on when
+ * reading prices, so the text always parses back to the original value. Only prices that need
+ * more than {@value #MAX_SCALE} decimals fall back to {@link Double#toString}.
+ */
+final class PriceBytes {
+
+    /** Upper bound of the bytes {@link #writePrice} produces. */
+    static final int MAX_PRICE_BYTES = 32;
+
+    private static final int MAX_SCALE = 8;
+    private static final double MAX_EXACT_UNITS = 1e15;
+    private static final double[] POWERS_OF_TEN = {
+        1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000
+    };
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private PriceBytes() {}
+
+    /** Writes a finite price as a plain decimal, returning the position after it. */
+    static int writePrice(double price, byte[] out, int at) {
+        double magnitude = Math.abs(price);
+        for (int scale = 0; scale <= MAX_SCALE; scale++) {
+            double scaled = magnitude * POWERS_OF_TEN[scale];
+            if (scaled >= MAX_EXACT_UNITS) {
+                break;
+            }
+            long units = Math.round(scaled);
+            if (units / POWERS_OF_TEN[scale] == magnitude) {
+                if (price < 0 || Double.doubleToRawLongBits(price) < 0) {
+                    out[at++] = '-';
+                }
+                return writeDecimal(units, scale, out, at);
+            }
+        }
+        String text = Double.toString(price); // Rare: many decimals or a huge magnitude
+        for (int i = 0; i < text.length(); i++) {
+            out[at++] = (byte) text.charAt(i);
+        }
+        return at;
+    }
+
+    /** Writes a minute of the day as HH:mm, returning the position after it. */
+    static int writeMinute(int minuteOfDay, byte[] out, int at) {
+        int hours = minuteOfDay / 60;
+        int minutes = minuteOfDay % 60;
+        out[at] = (byte) ('0' + hours / 10);
+        out[at + 1] = (byte) ('0' + hours % 10);
+        out[at + 2] = ':';
+        out[at + 3] = (byte) ('0' + minutes / 10);
+        out[at + 4] = (byte) ('0' + minutes % 10);
+        return at + 5;
+    }
+
+    /** Upper bound of the bytes {@link #writeJsonString} produces for a value of this length. */
+    static int maxJsonStringBytes(int length) {
+        return 2 + 6 * length;
+    }
+
+    /** Writes the value as a quoted, escaped JSON string in UTF-8. */
+    static int writeJsonString(CharSequence value, byte[] out, int at) {
+        out[at++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out[at++] = '\\';
+                out[at++] = (byte) c;
+            } else if (c < 0x20) {
+                out[at++] = '\\';
+                out[at++] = 'u';
+                out[at++] = '0';
+                out[at++] = '0';
+                out[at++] = HEX[c >> 4];
+                out[at++] = HEX[c & 0xf];
+            } else if (c < 0x80) {
+                out[at++] = (byte) c;
+            } else if (c < 0x800) {
+                out[at++] = (byte) (0xc0 | c >> 6);
+                out[at++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c)
+                    && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[at++] = (byte) (0xf0 | codePoint >> 18);
+                out[at++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                out[at++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                out[at++] = (byte) (0x80 | codePoint & 0x3f);
+            } else {
+                out[at++] = (byte) (0xe0 | c >> 12);
+                out[at++] = (byte) (0x80 | c >> 6 & 0x3f);
+                out[at++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        out[at++] = '"';
+        return at;
+    }
+
+    /** Copies pre-encoded ASCII, returning the position after it. */
+    static int write(byte[] ascii, byte[] out, int at) {
+        System.arraycopy(ascii, 0, out, at, ascii.length);
+        return at + ascii.length;
+    }
+
+    private static int writeDecimal(long units, int scale, byte[] out, int at) {
+        long whole = units;
+        long fraction = 0;
+        if (scale > 0) {
+            long divisor = (long) POWERS_OF_TEN[scale];
+            whole = units / divisor;
+            fraction = units % divisor;
+        }
+        at = writeDigits(whole, out, at);
+        out[at++] = '.';
+        if (scale == 0) {
+            out[at++] = '0';
+            return at;
+        }
+        for (int digit = scale - 1; digit >= 0; digit--) {
+            out[at + digit] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        return at + scale;
+    }
+
+    private static int writeDigits(long value, byte[] out, int at) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = at + digits - 1; i >= at; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return at + digits;
+    }
+}
@@ -0,0 +1,107 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of price lists keyed by the day they take effect. The list in effect on a day is
+ * the one with the latest effective date on or before it; a list loaded without a date is kept
+ * under {@link #UNDATED} and applies until the first dated list takes effect.
+ *
+ * <p>Successive price lists usually differ in a small share of their SKUs, so a dated list is
+ * stored as an overlay of its changed SKUs over the base columns of its closest neighbour (see
+ * {@link #share}). Lookups stay a dictionary probe and a binary search, and memory grows with the
+ * changes rather than with the number of lists.
+ */
+final class PriceListVersions {
+
+    /** Key of the list loaded without an effective date. */
+    static final LocalDate UNDATED = LocalDate.MIN;
+
+    static final PriceListVersions EMPTY = new PriceListVersions(new TreeMap<>());
+
+    private final NavigableMap<LocalDate, PricingSnapshot> lists;
+
+    private PriceListVersions(NavigableMap<LocalDate, PricingSnapshot> lists) {
+        this.lists = Collections.unmodifiableNavigableMap(lists);
+    }
+
+    /** A set holding only {@code snapshot}, as the undated list. */
+    static PriceListVersions of(PricingSnapshot snapshot) {
+        TreeMap<LocalDate, PricingSnapshot> lists = new TreeMap<>();
+        lists.put(UNDATED, snapshot);
+        return new PriceListVersions(lists);
+    }
+
+    boolean isEmpty() {
+        return lists.isEmpty();
+    }
+
+    /** The price lists by effective date, with the undated list first under {@link #UNDATED}. */
+    NavigableMap<LocalDate, PricingSnapshot> lists() {
+        return lists;
+    }
+
+    /** The key of the list in effect on {@code date}, or {@code null} if none is yet. */
+    LocalDate effectiveDate(LocalDate date) {
+        return lists.floorKey(date);
+    }
+
+    /** The list in effect on {@code date}, or an empty snapshot if none is yet. */
+    PricingSnapshot at(LocalDate date) {
+        Map.Entry<LocalDate, PricingSnapshot> entry = lists.floorEntry(date);
+        return entry == null ? PricingSnapshot.EMPTY : entry.getValue();
+    }
+
+    /** Returns a set in which {@code snapshot} is the list taking effect on {@code date}. */
+    PriceListVersions with(LocalDate date, PricingSnapshot snapshot) {
+        TreeMap<LocalDate, PricingSnapshot> next = new TreeMap<>(lists);
+        next.put(date, snapshot);
+        return new PriceListVersions(next);
+    }
+
+    /**
+     * Re-expresses a freshly built list taking effect on {@code date} as an overlay over the base
+     * columns of the list in effect just before it (or, for the earliest list, just after it).
+     * Returns {@code full} itself when there is no neighbour or when so many SKUs changed that the
+     * overlay would not be much smaller than a flat copy.
+     */
+    PricingSnapshot share(LocalDate date, PricingSnapshot full) {
+        Map.Entry<LocalDate, PricingSnapshot> neighbour = lists.lowerEntry(date);
+        if (neighbour == null) {
+            neighbour = lists.higherEntry(date);
+        }
+        if (neighbour == null) {
+            return full;
+        }
+        PricingSnapshot base = neighbour.getValue().base();
+        long rowBudget = base.baseRowCount() / PricingDelta.COMPACTION_RATIO;
+
+        PricingSnapshot.Builder changes = new PricingSnapshot.Builder();
+        long changedRows = 0;
+        for (int sku = 0; sku < full.skuCount(); sku++) {
+            String skuId = full.skuId(sku);
+            int baseSku = base.ordinalOf(skuId);
+            if (baseSku >= 0 && full.sameRows(sku, base, baseSku)) {
+                continue;
+            }
+            changedRows += full.endRow(sku) - full.firstRow(sku);
+            if (changedRows > rowBudget) {
+                return full;
+            }
+            for (int row = full.firstRow(sku); row < full.endRow(sku); row++) {
+                changes.onRow(skuId, full.rowStart(row), full.rowEnd(row), full.rowPrice(row));
+            }
+        }
+        for (int sku = 0; sku < base.skuCount(); sku++) {
+            String skuId = base.skuId(sku);
+            if (!full.contains(skuId)) {
+                changes.tombstone(skuId);
+            }
+        }
+        return base.withOverlay(changes.build());
+    }
+}
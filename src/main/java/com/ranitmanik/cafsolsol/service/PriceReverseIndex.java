@@ -0,0 +1,233 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.util.Arrays;
+
+/**
+ * Secondary index of one snapshot answering "which SKUs are priced at this minute", optionally
+ * only within a price band, cheapest first.
+ *
+ * <p>The priced segments of all live SKUs are kept in a segment tree over the minutes of the day:
+ * each segment is attached to the few nodes whose spans exactly tile its {@code [start, end)}
+ * interval, and every node keeps its entries sorted by price. The SKUs priced at a minute are the
+ * entries of the twelve nodes on the path from that minute's leaf to the root, and a price band
+ * narrows each node's run with two binary searches. A page is a merge of those runs that resumes
+ * after a cursor with the same searches, so its cost is its size plus a few searches, whatever the
+ * size of the catalog.
+ *
+ * <p>Entries are packed as the rank of the price among the distinct prices and the SKU ordinal in
+ * one {@code long}, so building and merging work on primitives and the order (price, then ordinal)
+ * is total, which is what makes a cursor a single number.
+ */
+final class PriceReverseIndex {
+
+    private static final int LEAVES = 2048; // Smallest power of two covering the minutes of a day
+    private static final int DEPTH = 12; // Nodes on the path from a leaf to the root
+
+    private final PricingSnapshot snapshot;
+    private final double[] prices; // Distinct prices, ascending
+    private final int[] nodeOffsets; // Per tree node, into entries
+    private final long[] entries; // rank << 32 | sku, sorted within each node
+
+    PriceReverseIndex(PricingSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int count = 0;
+        for (int sku = 0; sku < snapshot.skuCount(); sku++) {
+            if (snapshot.isLive(sku)) {
+                for (int s = snapshot.firstSegment(sku); s < snapshot.endSegment(sku); s++) {
+                    if (!Double.isNaN(snapshot.segmentPrice(s))) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        int[] skus = new int[count];
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        double[] segmentPrices = new double[count];
+        int segment = 0;
+        for (int sku = 0; sku < snapshot.skuCount(); sku++) {
+            if (!snapshot.isLive(sku)) {
+                continue;
+            }
+            int end = snapshot.endSegment(sku);
+            for (int s = snapshot.firstSegment(sku); s < end; s++) {
+                double price = snapshot.segmentPrice(s);
+                if (!Double.isNaN(price)) {
+                    skus[segment] = sku;
+                    starts[segment] = snapshot.segmentBreak(s);
+                    ends[segment] =
+                            s + 1 < end
+                                    ? snapshot.segmentBreak(s + 1)
+                                    : SkuPriceIndex.MINUTES_PER_DAY;
+                    segmentPrices[segment] = price;
+                    segment++;
+                }
+            }
+        }
+
+        double[] sorted = segmentPrices.clone();
+        Arrays.parallelSort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || Double.compare(sorted[distinct - 1], sorted[i]) != 0) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        prices = Arrays.copyOf(sorted, distinct);
+
+        // Segments are numbered in SKU order, so sorting by rank:segment orders by price, then SKU
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            long rank = Arrays.binarySearch(prices, segmentPrices[i]);
+            order[i] = rank << 32 | i;
+        }
+        Arrays.parallelSort(order);
+
+        nodeOffsets = new int[2 * LEAVES + 1];
+        for (int i = 0; i < count; i++) {
+            int l = starts[i] + LEAVES;
+            int r = ends[i] + LEAVES;
+            for (; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    nodeOffsets[l++ + 1]++;
+                }
+                if ((r & 1) == 1) {
+                    nodeOffsets[--r + 1]++;
+                }
+            }
+        }
+        for (int node = 0; node < 2 * LEAVES; node++) {
+            nodeOffsets[node + 1] += nodeOffsets[node];
+        }
+        int[] cursor = Arrays.copyOf(nodeOffsets, 2 * LEAVES);
+        entries = new long[nodeOffsets[2 * LEAVES]];
+        for (long packed : order) {
+            int i = (int) packed;
+            long entry = (packed >>> 32) << 32 | skus[i];
+            int l = starts[i] + LEAVES;
+            int r = ends[i] + LEAVES;
+            for (; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    entries[cursor[l++]++] = entry;
+                }
+                if ((r & 1) == 1) {
+                    entries[cursor[--r]++] = entry;
+                }
+            }
+        }
+    }
+
+    PricingSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /** Footprint of the index in bytes. */
+    long estimatedBytes() {
+        return entries.length * 8L + nodeOffsets.length * 4L + prices.length * 8L;
+    }
+
+    /**
+     * Starts a scan of the SKUs priced at the minute with a price in {@code [minPrice, maxPrice]},
+     * resuming after the entry whose {@link Scan#key key} is {@code after} (-1 to start from the
+     * cheapest).
+     */
+    Scan scan(int minuteOfDay, double minPrice, double maxPrice, long after) {
+        long from = Math.max((long) lowerRank(minPrice) << 32, after + 1);
+        long to = (long) upperRank(maxPrice) << 32;
+        Scan scan = new Scan();
+        for (int node = minuteOfDay + LEAVES; node > 0; node >>= 1) {
+            int start = lowerBound(nodeOffsets[node], nodeOffsets[node + 1], from);
+            int end = lowerBound(start, nodeOffsets[node + 1], to);
+            if (start < end) {
+                scan.positions[scan.runs] = start;
+                scan.ends[scan.runs] = end;
+                scan.runs++;
+            }
+        }
+        return scan;
+    }
+
+    /** A merge over the sorted runs of the nodes covering one minute. */
+    final class Scan {
+
+        private final int[] positions = new int[DEPTH];
+        private final int[] ends = new int[DEPTH];
+        private int runs;
+        private long key = -1;
+
+        /** Moves to the next SKU, returning {@code false} when there is none. */
+        boolean next() {
+            int best = -1;
+            for (int run = 0; run < runs; run++) {
+                if (positions[run] < ends[run]
+                        && (best < 0 || entries[positions[run]] < entries[positions[best]])) {
+                    best = run;
+                }
+            }
+            if (best < 0) {
+                return false;
+            }
+            key = entries[positions[best]++];
+            return true;
+        }
+
+        /** Position of the current SKU in the index order, to resume a later scan after it. */
+        long key() {
+            return key;
+        }
+
+        int sku() {
+            return (int) key;
+        }
+
+        double price() {
+            return prices[(int) (key >>> 32)];
+        }
+    }
+
+    /** Rank of the cheapest distinct price not below {@code price}. */
+    private int lowerRank(double price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Rank of the cheapest distinct price above {@code price}. */
+    private int upperRank(double price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** First position in {@code [from, to)} of entries holding a value not below {@code key}. */
+    private int lowerBound(int from, int to, long key) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
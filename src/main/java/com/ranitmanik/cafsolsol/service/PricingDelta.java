@@ -0,0 +1,165 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.util.Arrays;
+
+/**
+ * Upserts and deletions parsed from a delta feed, applied to a published {@link PricingSnapshot}
+ * to produce the next one.
+ *
+ * <p>Applying a delta behaves as if its rows were appended to the original feed, except that an
+ * upsert first drops any existing row with exactly the same window, so re-sending a window
+ * replaces its price instead of stacking another row. A SKU left without rows is removed.
+ *
+ * <p>Only the SKUs named in the delta are re-resolved. They go into an overlay over the shared base
+ * columns together with the SKUs changed by earlier deltas; once the overlay holds more than a
+ * quarter of the base rows it is folded into fresh flat columns so lookups do not degrade.
+ */
+final class PricingDelta implements PricingDeltaHandler {
+
+    /** The overlay is compacted once its rows times this ratio exceed the base rows. */
+    static final int COMPACTION_RATIO = 4;
+
+    private final SkuDictionary skuIds = new SkuDictionary();
+    private int[] opSkus = new int[256];
+    private int[] opStarts = new int[256];
+    private int[] opEnds = new int[256];
+    private double[] opPrices = new double[256]; // NaN marks a deletion
+    private int opCount;
+
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private double[] prices = new double[16];
+    private int size;
+
+    @Override
+    public void onRow(String skuId, int startMinute, int endMinute, double price) {
+        add(skuId, startMinute, endMinute, price);
+    }
+
+    @Override
+    public void onDelete(String skuId, int startMinute, int endMinute) {
+        add(skuId, startMinute, endMinute, Double.NaN);
+    }
+
+    int skuCount() {
+        return skuIds.size();
+    }
+
+    /** Returns the snapshot that results from applying this delta to {@code current}. */
+    PricingSnapshot applyTo(PricingSnapshot current) {
+        int skuCount = skuIds.size();
+
+        // Stable counting sort by SKU ordinal keeps the file order of each SKU's operations
+        int[] opOffsets = new int[skuCount + 1];
+        for (int op = 0; op < opCount; op++) {
+            opOffsets[opSkus[op] + 1]++;
+        }
+        for (int sku = 0; sku < skuCount; sku++) {
+            opOffsets[sku + 1] += opOffsets[sku];
+        }
+        int[] cursor = Arrays.copyOf(opOffsets, skuCount);
+        int[] order = new int[opCount];
+        for (int op = 0; op < opCount; op++) {
+            order[cursor[opSkus[op]]++] = op;
+        }
+
+        PricingSnapshot.Builder changes = new PricingSnapshot.Builder();
+        PricingSnapshot previous = current.overlay();
+        if (previous != null) {
+            // SKUs changed by earlier deltas and untouched by this one are carried over as is
+            for (int sku = 0; sku < previous.skuCount(); sku++) {
+                String skuId = previous.skuId(sku);
+                if (skuIds.ordinalOf(skuId) >= 0) {
+                    continue;
+                }
+                if (previous.endRow(sku) == previous.firstRow(sku)) {
+                    changes.tombstone(skuId);
+                }
+                for (int row = previous.firstRow(sku); row < previous.endRow(sku); row++) {
+                    changes.onRow(
+                            skuId,
+                            previous.rowStart(row),
+                            previous.rowEnd(row),
+                            previous.rowPrice(row));
+                }
+            }
+        }
+
+        for (int sku = 0; sku < skuCount; sku++) {
+            String skuId = skuIds.get(sku);
+            size = 0;
+            int existing = current.ordinalOf(skuId);
+            if (existing >= 0) {
+                for (int row = current.firstRow(existing); row < current.endRow(existing); row++) {
+                    append(current.rowStart(row), current.rowEnd(row), current.rowPrice(row));
+                }
+            }
+            for (int i = opOffsets[sku]; i < opOffsets[sku + 1]; i++) {
+                int op = order[i];
+                if (opStarts[op] < 0) {
+                    size = 0;
+                    continue;
+                }
+                remove(opStarts[op], opEnds[op]);
+                if (!Double.isNaN(opPrices[op])) {
+                    append(opStarts[op], opEnds[op], opPrices[op]);
+                }
+            }
+
+            if (size == 0 && current.baseContains(skuId)) {
+                changes.tombstone(skuId);
+            }
+            for (int row = 0; row < size; row++) {
+                changes.onRow(skuId, starts[row], ends[row], prices[row]);
+            }
+        }
+
+        PricingSnapshot overlay = changes.build();
+        PricingSnapshot next = current.withOverlay(overlay);
+        if ((long) overlay.rowCount() * COMPACTION_RATIO > current.baseRowCount()) {
+            return next.compact();
+        }
+        return next;
+    }
+
+    private void add(String skuId, int startMinute, int endMinute, double price) {
+        if (opCount == opSkus.length) {
+            int capacity = opCount * 2;
+            opSkus = Arrays.copyOf(opSkus, capacity);
+            opStarts = Arrays.copyOf(opStarts, capacity);
+            opEnds = Arrays.copyOf(opEnds, capacity);
+            opPrices = Arrays.copyOf(opPrices, capacity);
+        }
+        opSkus[opCount] = skuIds.intern(skuId);
+        opStarts[opCount] = startMinute;
+        opEnds[opCount] = endMinute;
+        opPrices[opCount] = price;
+        opCount++;
+    }
+
+    private void append(int start, int end, double price) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            prices = Arrays.copyOf(prices, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        prices[size] = price;
+        size++;
+    }
+
+    /** Drops the rows with exactly this window, keeping the others in order. */
+    private void remove(int start, int end) {
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (starts[row] != start || ends[row] != end) {
+                starts[kept] = starts[row];
+                ends[kept] = ends[row];
+                prices[kept] = prices[row];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+}
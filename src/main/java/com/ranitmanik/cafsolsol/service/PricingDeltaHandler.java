@@ -0,0 +1,14 @@
+package com.ranitmanik.cafsolsol.service;
+
+/**
+ * Receives the rows of a delta feed from {@link PricingTsvParser}: upserts arrive through {@link
+ * #onRow}, deletions through {@link #onDelete}, both in file order.
+ */
+interface PricingDeltaHandler extends PricingRowHandler {
+
+    /**
+     * Deletes the window {@code [startMinute, endMinute)} of the SKU, or every window of the SKU
+     * when both minutes are -1.
+     */
+    void onDelete(String skuId, int startMinute, int endMinute);
+}
@@ -0,0 +1,140 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the rows of a snapshot to a stream as TSV or newline-delimited JSON.
+ *
+ * <p>Rows are read straight from the snapshot columns and encoded into one fixed buffer that is
+ * handed to the stream whenever it fills, so memory stays constant whatever the size of the
+ * catalog and nothing is built per row (see {@link PriceBytes}). The rows of each SKU come out
+ * together and in their original order, which is all the "last row wins" rule needs, so a TSV
+ * export loads back into the same prices.
+ */
+final class PricingExporter {
+
+    static final String TSV_HEADER = "SkuID\tStartTime\tEndTime\tPrice\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final boolean json;
+    private int position;
+
+    private PricingExporter(OutputStream out, boolean json) {
+        this.out = out;
+        this.json = json;
+    }
+
+    /** Writes the TSV header and rows, returning the number of rows. The stream is not closed. */
+    static long writeTsv(PricingSnapshot snapshot, OutputStream out) throws IOException {
+        PricingExporter exporter = new PricingExporter(out, false);
+        exporter.writeAscii(TSV_HEADER);
+        return exporter.writeRows(snapshot);
+    }
+
+    /**
+     * Writes one {@code {"skuId", "startTime", "endTime", "price"}} object per line, returning the
+     * number of rows. The stream is not closed.
+     */
+    static long writeNdjson(PricingSnapshot snapshot, OutputStream out) throws IOException {
+        return new PricingExporter(out, true).writeRows(snapshot);
+    }
+
+    private long writeRows(PricingSnapshot snapshot) throws IOException {
+        long rows = 0;
+        for (int sku = 0; sku < snapshot.skuCount(); sku++) {
+            if (!snapshot.isLive(sku)) {
+                continue;
+            }
+            String skuId = snapshot.skuId(sku);
+            for (int row = snapshot.firstRow(sku); row < snapshot.endRow(sku); row++) {
+                if (json) {
+                    writeAscii("{\"skuId\":\"");
+                    writeSkuId(skuId);
+                    writeAscii("\",\"startTime\":\"");
+                    writeMinute(snapshot.rowStart(row));
+                    writeAscii("\",\"endTime\":\"");
+                    writeMinute(snapshot.rowEnd(row));
+                    writeAscii("\",\"price\":");
+                    writePrice(snapshot.rowPrice(row));
+                    put((byte) '}');
+                } else {
+                    writeSkuId(skuId);
+                    put((byte) '\t');
+                    writeMinute(snapshot.rowStart(row));
+                    put((byte) '\t');
+                    writeMinute(snapshot.rowEnd(row));
+                    put((byte) '\t');
+                    writePrice(snapshot.rowPrice(row));
+                }
+                put((byte) '\n');
+                rows++;
+            }
+        }
+        flush();
+        return rows;
+    }
+
+    private void writeSkuId(String skuId) throws IOException {
+        for (int i = 0; i < skuId.length(); i++) {
+            if (skuId.charAt(i) >= 0x80) {
+                // Rare non-ASCII ids take the slow path through the charset encoder
+                for (byte b : skuId.getBytes(StandardCharsets.UTF_8)) {
+                    writeSkuIdByte(b);
+                }
+                return;
+            }
+        }
+        for (int i = 0; i < skuId.length(); i++) {
+            writeSkuIdByte((byte) skuId.charAt(i));
+        }
+    }
+
+    private void writeSkuIdByte(byte b) throws IOException {
+        if (json && (b == '"' || b == '\\')) {
+            put((byte) '\\');
+        } else if (json && b >= 0 && b < 0x20) {
+            writeAscii(String.format("\\u%04x", b));
+            return;
+        }
+        put(b);
+    }
+
+    private void writeMinute(int minuteOfDay) throws IOException {
+        ensure(5);
+        position = PriceBytes.writeMinute(minuteOfDay, buffer, position);
+    }
+
+    private void writePrice(double price) throws IOException {
+        ensure(PriceBytes.MAX_PRICE_BYTES);
+        position = PriceBytes.writePrice(price, buffer, position);
+    }
+
+    private void writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            put((byte) text.charAt(i));
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = b;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,152 @@
+package com.ranitmanik.cafsolsol.service;
+
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation for {@link PricingService}.
+ *
+ * <p>Every meter is registered up front, so recording a lookup is a couple of field reads and
+ * atomic adds with no tag resolution or allocation on the request path.
+ */
+final class PricingMetrics {
+
+    /** Lookup flavours, used as the {@code operation} tag. */
+    enum Operation {
+        AT_TIME("at_time"),
+        FIRST("first"),
+        BATCH("batch"),
+        RANGE("range"),
+        SEARCH("search");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Timer[] lookupTimers = new Timer[Operation.values().length];
+    private final Counter[] hits = new Counter[Operation.values().length];
+    private final Counter[] notSet = new Counter[Operation.values().length];
+    private final Counter[] notFound = new Counter[Operation.values().length];
+    private final Timer loadTimer;
+    private final Timer deltaTimer;
+    private final Counter rowsLoaded;
+    private final Counter rowsSkipped;
+    private final Counter rowsRejected;
+    private volatile double lastLoadRowsPerSecond;
+
+    PricingMetrics(
+            MeterRegistry registry, Supplier<PricingSnapshot> snapshot, LongSupplier searchIndex) {
+        for (Operation operation : Operation.values()) {
+            int i = operation.ordinal();
+            lookupTimers[i] =
+                    Timer.builder("pricing.lookup")
+                            .description("Latency of price lookups inside PricingService")
+                            .tag("operation", operation.tag)
+                            .publishPercentileHistogram()
+                            .register(registry);
+            hits[i] = lookupCounter(registry, operation, "hit");
+            notSet[i] = lookupCounter(registry, operation, "not_set");
+            notFound[i] = lookupCounter(registry, operation, "not_found");
+        }
+
+        loadTimer =
+                Timer.builder("pricing.load")
+                        .description("Duration of full TSV loads, from first byte to publish")
+                        .register(registry);
+        deltaTimer =
+                Timer.builder("pricing.delta")
+                        .description("Duration of delta uploads, from first byte to publish")
+                        .register(registry);
+        rowsLoaded = rowCounter(registry, "loaded");
+        rowsSkipped = rowCounter(registry, "skipped");
+        rowsRejected = rowCounter(registry, "rejected");
+        Gauge.builder("pricing.load.rows.per.second", this, m -> m.lastLoadRowsPerSecond)
+                .description("Parse and index throughput of the most recent load")
+                .register(registry);
+
+        Gauge.builder("pricing.skus", snapshot, s -> s.get().liveSkuCount())
+                .description("SKUs in the published snapshot")
+                .register(registry);
+        Gauge.builder("pricing.rows", snapshot, s -> s.get().rowCount())
+                .description("Rows in the published snapshot")
+                .register(registry);
+        Gauge.builder("pricing.index.segments", snapshot, s -> s.get().segmentCount())
+                .description("Resolved price segments in the published snapshot")
+                .register(registry);
+        Gauge.builder(
+                        "pricing.index.memory",
+                        snapshot,
+                        s -> s.get().estimatedBytes() + searchIndex.getAsLong())
+                .description(
+                        "Estimated footprint of the published snapshot, heap or mapped, and of"
+                                + " its search index once built")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    void lookup(Operation operation, long startNanos, double price, boolean found) {
+        int i = operation.ordinal();
+        lookupTimers[i].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (!found) {
+            notFound[i].increment();
+        } else if (Double.isNaN(price)) {
+            notSet[i].increment();
+        } else {
+            hits[i].increment();
+        }
+    }
+
+    /**
+     * Records a whole batch or range query as one timing; items with an invalid time are not
+     * counted.
+     */
+    void batch(Operation operation, long startNanos, int priced, int unset, int missing) {
+        int i = operation.ordinal();
+        lookupTimers[i].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        hits[i].increment(priced);
+        notSet[i].increment(unset);
+        notFound[i].increment(missing);
+    }
+
+    void load(long startNanos, PricingLoadReport report) {
+        long elapsed = System.nanoTime() - startNanos;
+        loadTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        rowsLoaded.increment(report.getRowsLoaded());
+        rowsSkipped.increment(report.getRowsSkipped());
+        rowsRejected.increment(report.getRowsRejected());
+        lastLoadRowsPerSecond = report.getRowsLoaded() * 1e9 / Math.max(elapsed, 1);
+    }
+
+    /** Delta rows count towards the same row counters as full loads. */
+    void delta(long startNanos, PricingLoadReport report) {
+        deltaTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        rowsLoaded.increment(report.getRowsLoaded());
+        rowsSkipped.increment(report.getRowsSkipped());
+        rowsRejected.increment(report.getRowsRejected());
+    }
+
+    private static Counter lookupCounter(
+            MeterRegistry registry, Operation operation, String result) {
+        return Counter.builder("pricing.lookup.results")
+                .description("Price lookups by outcome")
+                .tag("operation", operation.tag)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static Counter rowCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("pricing.load.rows")
+                .description("TSV rows seen by loads, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
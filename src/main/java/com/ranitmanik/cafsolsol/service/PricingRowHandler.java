@@ -0,0 +1,7 @@
+package com.ranitmanik.cafsolsol.service;
+
+/** Receives pricing rows from {@link PricingTsvParser} in file order, as they are read. */
+interface PricingRowHandler {
+
+    void onRow(String skuId, int startMinute, int endMinute, double price);
+}
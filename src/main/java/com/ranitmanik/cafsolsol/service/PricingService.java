@@ -1,80 +1,955 @@
 package com.ranitmanik.cafsolsol.service;
 
+import com.ranitmanik.cafsolsol.model.PriceAggregate;
+import com.ranitmanik.cafsolsol.model.PriceQuery;
+import com.ranitmanik.cafsolsol.model.PriceQuote;
+import com.ranitmanik.cafsolsol.model.PriceTimeline;
+import com.ranitmanik.cafsolsol.model.PricedSkuPage;
+import com.ranitmanik.cafsolsol.model.PricingExport;
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
 import com.ranitmanik.cafsolsol.model.PricingRecord;
-import java.io.BufferedReader;
+import com.ranitmanik.cafsolsol.model.ShardAssignment;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PricingService {
 
-    private Map<String, List<PricingRecord>> pricingData = new HashMap<>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(PricingService.class);
 
-    public void loadPricingDataFromTSV(InputStream inputStream) throws IOException {
-        pricingData.clear();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            boolean isHeader = true;
+    /** Returned by {@link #writePriceQuote} when the SKU is not in the current price list. */
+    public static final int QUOTE_NOT_FOUND = -1;
 
-            while ((line = reader.readLine()) != null) {
-                if (isHeader) {
-                    isHeader = false;
-                    continue; // Skip header line
-                }
+    /** Returned by {@link #writePriceQuote} when the time is not a valid HH:mm. */
+    public static final int QUOTE_INVALID_TIME = -2;
 
-                String[] columns = line.split("\t");
-                if (columns.length == 4) {
-                    String skuId = columns[0].trim();
-                    LocalTime startTime = LocalTime.parse(columns[1].trim());
-                    LocalTime endTime = LocalTime.parse(columns[2].trim());
-                    double price = Double.parseDouble(columns[3].trim());
+    // The fixed parts of a quote, encoded once
+    private static final byte[] QUOTE_SKU_ID = ascii("{\"skuId\":");
+    private static final byte[] QUOTE_TIME = ascii(",\"time\":\"");
+    private static final byte[] QUOTE_TIMED_PRICE = ascii("\",\"price\":");
+    private static final byte[] QUOTE_PRICE = ascii(",\"price\":");
+    private static final byte[] QUOTE_NOT_SET = ascii("\"NOT SET\"}");
 
-                    PricingRecord record = new PricingRecord(skuId, startTime, endTime, price);
-                    pricingData.computeIfAbsent(skuId, k -> new ArrayList<>()).add(record);
-                }
+    /** Every loaded price list by effective date; the source of truth for dated lookups. */
+    private final AtomicReference<PriceListVersions> versions =
+            new AtomicReference<>(PriceListVersions.EMPTY);
+
+    /** The list in effect today, served to every query without a date. */
+    private final AtomicReference<PricingSnapshot> snapshot =
+            new AtomicReference<>(PricingSnapshot.EMPTY);
+
+    /** Reverse index of {@link #snapshot} for searches, or {@code null} while it is being built. */
+    private volatile PriceReverseIndex reverseIndex;
+    private final Object reverseIndexLock = new Object();
+
+    /** Key of the list in {@link #snapshot}; guarded by {@code this}. */
+    private LocalDate effectiveDate;
+
+    /** Where loads are persisted and restored from at startup; persistence is off when empty. */
+    @Value("${pricing.snapshot.path:}")
+    private String snapshotPath;
+
+    /** The list each snapshot file holds, by date; guarded by {@code persistLock}. */
+    private final Map<LocalDate, PricingSnapshot> persisted = new HashMap<>();
+    private final Object persistLock = new Object();
+
+    /**
+     * When enabled, a price query without a time returns the price in effect now, served from a
+     * per-minute cache, instead of the price of the SKU's first row.
+     */
+    @Value("${pricing.current-price-cache.enabled:false}")
+    private boolean currentPriceCacheEnabled;
+
+    /**
+     * Threads used to parse and index full loads: 0 uses the common ForkJoin pool, 1 keeps loads on
+     * the calling thread.
+     */
+    @Value("${pricing.load.parallelism:0}")
+    private int loadParallelism;
+
+    /**
+     * Instances of a partitioned deployment, each of which loads only the SKUs in its hash range;
+     * 1 keeps the whole catalog on every instance.
+     */
+    @Value("${pricing.shard.count:1}")
+    private int shardCount = 1;
+
+    /** This instance's shard, from 0 to {@code pricing.shard.count - 1}. */
+    @Value("${pricing.shard.index:0}")
+    private int shardIndex;
+
+    /** Base URLs of the instances by shard index, used to redirect requests for other shards. */
+    @Value("${pricing.shard.nodes:}")
+    private List<String> shardNodes = List.of();
+
+    // Read lock-free on every lookup; replaced only by setShard
+    private volatile PricingShard shard = new PricingShard(0, 1, List.of());
+    private ForkJoinPool loadPool;
+    private volatile CurrentPriceCache currentPrices;
+    private Clock clock = Clock.systemDefaultZone();
+
+    private PricingMetrics metrics =
+            new PricingMetrics(new SimpleMeterRegistry(), snapshot::get, this::reverseIndexBytes);
+
+    @Autowired(required = false)
+    void setMeterRegistry(MeterRegistry meterRegistry) {
+        metrics = new PricingMetrics(meterRegistry, snapshot::get, this::reverseIndexBytes);
+    }
+
+    void setCurrentPriceCacheEnabled(boolean enabled) {
+        currentPriceCacheEnabled = enabled;
+        refreshCurrentPrices();
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    synchronized void setShard(int index, int count, List<String> nodes) {
+        shardIndex = index;
+        shardCount = count;
+        shardNodes = nodes;
+        shard =
+                new PricingShard(
+                        index,
+                        count,
+                        nodes.stream()
+                                .map(String::trim)
+                                .filter(node -> !node.isEmpty())
+                                .map(URI::create)
+                                .toList());
+    }
+
+    synchronized void setLoadParallelism(int parallelism) {
+        if (loadPool != null) {
+            loadPool.shutdown();
+            loadPool = null;
+        }
+        loadParallelism = parallelism;
+    }
+
+    @PostConstruct
+    void init() {
+        setShard(shardIndex, shardCount, shardNodes);
+        restoreSnapshot();
+    }
+
+    /**
+     * Restores the undated list from {@code pricing.snapshot.path} and every dated list from the
+     * {@code <path>.<yyyy-MM-dd>} files next to it. Each file holds a flat copy of its list, so
+     * lists restored this way no longer share their columns.
+     */
+    void restoreSnapshot() {
+        if (snapshotPath == null || snapshotPath.isBlank()) {
+            return;
+        }
+        Path path = Path.of(snapshotPath);
+        PriceListVersions restored = PriceListVersions.EMPTY;
+        try {
+            PricingShard owned = shard;
+            if (Files.exists(path)) {
+                restored =
+                        restored.with(
+                                PriceListVersions.UNDATED,
+                                owned.filter(PricingSnapshotFile.open(path)));
+            }
+            for (Map.Entry<LocalDate, Path> dated : datedSnapshotFiles(path).entrySet()) {
+                restored =
+                        restored.with(
+                                dated.getKey(),
+                                owned.filter(PricingSnapshotFile.open(dated.getValue())));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Startup goes on without the snapshot; the next load re-parses the feed
+            LOGGER.warn("Could not restore pricing snapshot from {}: {}", path, e.getMessage());
+            return;
+        }
+        if (!restored.isEmpty()) {
+            synchronized (persistLock) {
+                persisted.putAll(restored.lists());
             }
+            publish(restored);
+            LOGGER.info(
+                    "Restored {} pricing snapshot(s) from {}", restored.lists().size(), path);
+        }
+    }
+
+    /**
+     * Replaces the dataset, including every dated price list, with a TSV feed, which may be gzip
+     * or zstd compressed.
+     */
+    public PricingLoadReport loadPricingDataFromTSV(InputStream inputStream) throws IOException {
+        return loadPricingDataFromTSV(inputStream, null);
+    }
+
+    /**
+     * Loads a TSV feed as the price list taking effect at the start of {@code effectiveDate},
+     * replacing any list with the same date and leaving the others in place. Lists for future
+     * dates can be preloaded this way; they take over without a reload once their day begins.
+     * With a {@code null} date this replaces the whole dataset, like {@link
+     * #loadPricingDataFromTSV(InputStream)}.
+     */
+    public PricingLoadReport loadPricingDataFromTSV(
+            InputStream inputStream, LocalDate effectiveDate) throws IOException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = loadPool();
+        PricingShard owned = shard;
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        PricingLoadReport report;
+        try (InputStream in = FeedDecompressor.decompress(inputStream)) {
+            report =
+                    pool == null
+                            ? new PricingTsvParser(owned.filter(builder)).parse(in)
+                            : new ParallelPricingLoader(
+                                            pool, ParallelPricingLoader.DEFAULT_CHUNK_BYTES, owned)
+                                    .load(in, builder);
+        }
+
+        // Readers keep using the previous snapshot until the new one is complete
+        PricingSnapshot loaded = builder.build(pool);
+        if (effectiveDate == null) {
+            publish(PriceListVersions.of(loaded));
+            persist(PriceListVersions.UNDATED);
+        } else {
+            synchronized (this) {
+                PriceListVersions all = versions.get();
+                loaded = all.share(effectiveDate, loaded);
+                publish(all.with(effectiveDate, loaded));
+            }
+            persist(effectiveDate);
+        }
+        metrics.load(start, report);
+        return report;
+    }
+
+    /**
+     * Applies a delta feed of upserts and deletions, plain or compressed, to the price list in
+     * effect today. Only the SKUs named in the feed are re-indexed; everything else is shared with
+     * the previous version.
+     */
+    public PricingLoadReport applyPricingDelta(InputStream inputStream) throws IOException {
+        long start = System.nanoTime();
+        PricingDelta delta = new PricingDelta();
+        PricingLoadReport report;
+        try (InputStream in = FeedDecompressor.decompress(inputStream)) {
+            report = new PricingTsvParser(shard.filter(delta)).parse(in);
+        }
+
+        LocalDate date;
+        long version;
+        synchronized (this) {
+            // Deltas build on the latest version, so applying and publishing must not interleave
+            PriceListVersions all = versions.get();
+            LocalDate today = LocalDate.now(clock);
+            date = Objects.requireNonNullElse(all.effectiveDate(today), PriceListVersions.UNDATED);
+            PricingSnapshot updated = delta.applyTo(all.at(today));
+            version = publish(all.with(date, updated)).version();
+        }
+        metrics.delta(start, report);
+        LOGGER.info(
+                "Applied pricing delta to {} SKUs, now at version {}", delta.skuCount(), version);
+        persist(date);
+        return report;
+    }
+
+    /** Writes the current dataset to a binary snapshot that {@link #loadSnapshot} can map. */
+    public void saveSnapshot(Path path) throws IOException {
+        PricingSnapshotFile.write(snapshot.get(), path);
+    }
+
+    /**
+     * Replaces the whole dataset with a memory-mapped binary snapshot, as the undated list. In a
+     * partitioned deployment the owned SKUs are copied out of the mapping and the rest is dropped.
+     */
+    public void loadSnapshot(Path path) throws IOException {
+        publish(PriceListVersions.of(shard.filter(PricingSnapshotFile.open(path))));
+    }
+
+    /**
+     * Switches to a preloaded price list once its effective date has come, then advances the
+     * current-price cache to the present minute, rebuilding it first if a new snapshot was
+     * published. Runs at the top of every minute, where window boundaries fall.
+     */
+    @Scheduled(cron = "0 * * * * *")
+    synchronized void refreshCurrentPrices() {
+        PriceListVersions all = versions.get();
+        if (!Objects.equals(all.effectiveDate(LocalDate.now(clock)), effectiveDate)) {
+            publishCurrent(all);
+            LOGGER.info("Price list effective {} is now in effect", effectiveDate);
+        }
+        if (!currentPriceCacheEnabled) {
+            currentPrices = null;
+            return;
+        }
+        PricingSnapshot current = snapshot.get();
+        CurrentPriceCache cache = currentPrices;
+        boolean rebuilt = cache == null || cache.snapshot() != current;
+        if (rebuilt) {
+            cache = new CurrentPriceCache(current);
+        }
+        long epochMinute = clock.millis() / 60_000;
+        cache.advanceTo(SkuPriceIndex.toMinuteOfDay(LocalTime.now(clock)), epochMinute);
+        if (rebuilt) {
+            currentPrices = cache;
         }
     }
 
     public Double getPriceForSkuAtTime(String skuId, LocalTime time) {
-        if (!pricingData.containsKey(skuId)) {
+        long start = System.nanoTime();
+        PricingSnapshot current = snapshot.get();
+        int sku = current.ordinalOf(skuId);
+        if (sku < 0) {
+            metrics.lookup(PricingMetrics.Operation.AT_TIME, start, Double.NaN, false);
             return null;
         }
 
-        List<PricingRecord> records = pricingData.get(skuId);
-        Double lastMatchingPrice = null;
+        // Overlaps were resolved at load time, so the last matching row is found by binary search
+        double price = current.priceAt(sku, SkuPriceIndex.toMinuteOfDay(time));
+        metrics.lookup(PricingMetrics.Operation.AT_TIME, start, price, true);
+        return Double.isNaN(price) ? null : price;
+    }
+
+    /**
+     * Returns the price of the SKU at {@code dateTime} in the price list in effect on that day, or
+     * {@code null} if the SKU is not part of it or has no price at that time.
+     */
+    public Double getPriceForSkuAt(String skuId, LocalDateTime dateTime) {
+        long start = System.nanoTime();
+        PricingSnapshot list = versions.get().at(dateTime.toLocalDate());
+        int sku = list.ordinalOf(skuId);
+        if (sku < 0) {
+            metrics.lookup(PricingMetrics.Operation.AT_TIME, start, Double.NaN, false);
+            return null;
+        }
 
-        for (PricingRecord record : records) {
-            if (record.isTimeInRange(time)) {
-                lastMatchingPrice = record.getPrice();
+        double price = list.priceAt(sku, SkuPriceIndex.toMinuteOfDay(dateTime.toLocalTime()));
+        metrics.lookup(PricingMetrics.Operation.AT_TIME, start, price, true);
+        return Double.isNaN(price) ? null : price;
+    }
+
+    /**
+     * Returns the SKU's resolved timeline in the price list in effect on {@code date} (today's
+     * list when {@code null}), or {@code null} if the SKU is not part of it. The timeline is read
+     * straight from the segment index, so it costs one pass over the SKU's segments.
+     */
+    public PriceTimeline getPriceTimeline(String skuId, LocalDate date) {
+        return getPriceTimeline(skuId, date, null, null);
+    }
+
+    /**
+     * Like {@link #getPriceTimeline(String, LocalDate)}, restricted to the segments in {@code
+     * [from, to)} and clipped to it. A {@code null} bound means the start or end of the day, and a
+     * range whose end is before its start wraps past midnight.
+     */
+    public PriceTimeline getPriceTimeline(
+            String skuId, LocalDate date, LocalTime from, LocalTime to) {
+        long start = System.nanoTime();
+        PricingSnapshot list;
+        LocalDate listDate;
+        if (date == null) {
+            list = snapshot.get();
+            listDate = getEffectiveDate();
+        } else {
+            PriceListVersions all = versions.get();
+            list = all.at(date);
+            listDate = all.effectiveDate(date);
+        }
+        int sku = list.ordinalOf(skuId);
+        if (sku < 0) {
+            metrics.batch(PricingMetrics.Operation.RANGE, start, 0, 0, 1);
+            return null;
+        }
+
+        List<PriceTimeline.Segment> segments = new ArrayList<>();
+        PricingSnapshot.SegmentVisitor collector =
+                (startMinute, endMinute, price) ->
+                        segments.add(
+                                new PriceTimeline.Segment(
+                                        formatMinute(startMinute),
+                                        formatMinute(endMinute),
+                                        price));
+        visitRange(list, sku, fromMinute(from), toMinute(to), collector);
+        String effective =
+                listDate == null || PriceListVersions.UNDATED.equals(listDate)
+                        ? null
+                        : listDate.toString();
+        metrics.batch(
+                PricingMetrics.Operation.RANGE,
+                start,
+                segments.isEmpty() ? 0 : 1,
+                segments.isEmpty() ? 1 : 0,
+                0);
+        return new PriceTimeline(skuId, effective, snapshot.get().version(), segments);
+    }
+
+    /**
+     * Computes the minimum, maximum and time-weighted average price of each SKU over {@code [from,
+     * to)} in the price list in effect on {@code date} (today's list when {@code null}). Bounds
+     * behave as in {@link #getPriceTimeline(String, LocalDate, LocalTime, LocalTime)}. Every SKU
+     * is answered from the same list, with one walk over the segments in the range.
+     */
+    public List<PriceAggregate> getPriceAggregates(
+            List<String> skuIds, LocalDate date, LocalTime from, LocalTime to) {
+        long start = System.nanoTime();
+        PricingSnapshot list = date == null ? snapshot.get() : versions.get().at(date);
+        PricingShard owned = shard;
+        int fromMinute = fromMinute(from);
+        int toMinute = toMinute(to);
+        List<PriceAggregate> aggregates = new ArrayList<>(skuIds.size());
+        RangeStats stats = new RangeStats();
+        int priced = 0;
+        int notSet = 0;
+        int notFound = 0;
+        for (String skuId : skuIds) {
+            int sku = skuId != null ? list.ordinalOf(skuId) : -1;
+            if (sku < 0) {
+                aggregates.add(
+                        new PriceAggregate(
+                                skuId, null, null, null, 0, notFoundStatus(owned, skuId)));
+                notFound++;
+                continue;
+            }
+            stats.reset();
+            visitRange(list, sku, fromMinute, toMinute, stats);
+            if (stats.minutes == 0) {
+                aggregates.add(
+                        new PriceAggregate(
+                                skuId, null, null, null, 0, PriceQuote.Status.NOT_SET));
+                notSet++;
+            } else {
+                aggregates.add(
+                        new PriceAggregate(
+                                skuId,
+                                stats.min,
+                                stats.max,
+                                stats.weightedSum / stats.minutes,
+                                stats.minutes,
+                                PriceQuote.Status.OK));
+                priced++;
             }
         }
+        metrics.batch(PricingMetrics.Operation.RANGE, start, priced, notSet, notFound);
+        return aggregates;
+    }
 
-        return lastMatchingPrice;
+    /**
+     * Lists the SKUs of the price list in effect today that are priced at {@code time} (now when
+     * {@code null}), only those with a price in {@code [minPrice, maxPrice]} when bounds are given,
+     * cheapest first and by load order among equal prices. Pages hold at most {@code limit} SKUs;
+     * passing a page's next cursor returns the following one. The answer comes from the reverse
+     * index built in the background when the list was published, so no SKU outside the page is
+     * visited.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     * @throws IllegalStateException if the cursor comes from an earlier data version
+     */
+    public PricedSkuPage findPricedSkus(
+            LocalTime time, Double minPrice, Double maxPrice, String cursor, int limit) {
+        long start = System.nanoTime();
+        PriceReverseIndex index = reverseIndex();
+        long version = index.snapshot().version();
+        long after = -1;
+        if (cursor != null && !cursor.isEmpty()) {
+            int separator = cursor.indexOf(':');
+            try {
+                if (separator < 0) {
+                    throw new NumberFormatException(cursor);
+                }
+                if (Long.parseLong(cursor.substring(0, separator)) != version) {
+                    throw new IllegalStateException(
+                            "The cursor belongs to an earlier data version; start over");
+                }
+                after = Long.parseLong(cursor.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor '" + cursor + "'", e);
+            }
+        }
+        LocalTime at = time != null ? time : LocalTime.now(clock);
+        int minute = SkuPriceIndex.toMinuteOfDay(at);
+        double min = minPrice != null ? minPrice : Double.NEGATIVE_INFINITY;
+        double max = maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY;
+
+        // Walk the page once to size it and find where the next one starts
+        PriceReverseIndex.Scan scan = index.scan(minute, min, max, after);
+        int size = 0;
+        long last = after;
+        while (size < limit && scan.next()) {
+            size++;
+            last = scan.key();
+        }
+        String nextCursor = size == limit && scan.next() ? version + ":" + last : null;
+        metrics.batch(PricingMetrics.Operation.SEARCH, start, size, 0, 0);
+
+        int pageSize = size;
+        long resumeAfter = after;
+        return new PricedSkuPage(
+                version,
+                formatMinute(minute),
+                pageSize,
+                nextCursor,
+                visitor -> {
+                    PriceReverseIndex.Scan page = index.scan(minute, min, max, resumeAfter);
+                    PricingSnapshot list = index.snapshot();
+                    for (int i = 0; i < pageSize && page.next(); i++) {
+                        visitor.visit(list.skuId(page.sku()), page.price());
+                    }
+                });
     }
 
     public Double getPriceForSku(String skuId) {
-        if (!pricingData.containsKey(skuId)) {
+        long start = System.nanoTime();
+        PricingSnapshot current = snapshot.get();
+        int sku = current.ordinalOf(skuId);
+        if (sku < 0) {
+            metrics.lookup(PricingMetrics.Operation.FIRST, start, Double.NaN, false);
             return null;
         }
 
-        List<PricingRecord> records = pricingData.get(skuId);
-        if (!records.isEmpty()) {
-            return records.get(0).getPrice();
+        double price = defaultPrice(current, sku);
+        metrics.lookup(PricingMetrics.Operation.FIRST, start, price, true);
+        return Double.isNaN(price) ? null : price;
+    }
+
+    /**
+     * Writes the JSON quote {@code GET /price} returns for the SKU and optional time into {@code
+     * buffer} and returns its length, or {@link #QUOTE_INVALID_TIME} or {@link #QUOTE_NOT_FOUND}.
+     * Only strict HH:mm is accepted; without a time the quote is the same as {@link
+     * #getPriceForSku}.
+     *
+     * <p>This is the allocation-free form of those lookups: the time is parsed by hand, the SKU is
+     * found with a single dictionary probe and the response is encoded straight into the buffer,
+     * so no {@code LocalTime}, boxed price, map or exception is created. The buffer must hold at
+     * least {@link #maxQuoteBytes} for the id.
+     */
+    public int writePriceQuote(CharSequence skuId, CharSequence time, byte[] buffer) {
+        long start = System.nanoTime();
+        boolean timed = time != null && time.length() > 0;
+        int minute = timed ? SkuPriceIndex.parseMinuteOfDay(time) : -1;
+        if (timed && minute < 0) {
+            return QUOTE_INVALID_TIME;
+        }
+        PricingMetrics.Operation operation =
+                timed ? PricingMetrics.Operation.AT_TIME : PricingMetrics.Operation.FIRST;
+        PricingSnapshot current = snapshot.get();
+        int sku = current.ordinalOf(skuId);
+        if (sku < 0) {
+            metrics.lookup(operation, start, Double.NaN, false);
+            return QUOTE_NOT_FOUND;
+        }
+
+        double price = timed ? current.priceAt(sku, minute) : defaultPrice(current, sku);
+        metrics.lookup(operation, start, price, true);
+        int length = PriceBytes.write(QUOTE_SKU_ID, buffer, 0);
+        length = PriceBytes.writeJsonString(skuId, buffer, length);
+        if (timed) {
+            length = PriceBytes.write(QUOTE_TIME, buffer, length);
+            length = PriceBytes.writeMinute(minute, buffer, length);
+            length = PriceBytes.write(QUOTE_TIMED_PRICE, buffer, length);
+        } else {
+            length = PriceBytes.write(QUOTE_PRICE, buffer, length);
         }
+        if (Double.isNaN(price)) {
+            return PriceBytes.write(QUOTE_NOT_SET, buffer, length);
+        }
+        length = PriceBytes.writePrice(price, buffer, length);
+        buffer[length++] = '}';
+        return length;
+    }
 
-        return null;
+    /** Size of buffer {@link #writePriceQuote} needs for an id of this length. */
+    public static int maxQuoteBytes(int skuIdLength) {
+        return 64 + PriceBytes.maxJsonStringBytes(skuIdLength) + PriceBytes.MAX_PRICE_BYTES;
     }
 
+    /**
+     * Prices a batch of (skuId, time) pairs against one snapshot, so every quote in the batch comes
+     * from the same dataset even if a reload is published meanwhile. A missing time quotes the
+     * same price as {@link #getPriceForSku}.
+     */
+    public List<PriceQuote> getPrices(List<PriceQuery> queries) {
+        long start = System.nanoTime();
+        PricingSnapshot current = snapshot.get();
+        PricingShard owned = shard;
+        List<PriceQuote> quotes = new ArrayList<>(queries.size());
+        int priced = 0;
+        int notSet = 0;
+        int notFound = 0;
+        for (PriceQuery query : queries) {
+            String skuId = query.getSkuId();
+            String time = query.getTime();
+            int sku = skuId != null ? current.ordinalOf(skuId) : -1;
+            if (sku < 0) {
+                quotes.add(new PriceQuote(skuId, time, null, notFoundStatus(owned, skuId)));
+                notFound++;
+                continue;
+            }
+
+            double price;
+            if (time != null && !time.isEmpty()) {
+                try {
+                    LocalTime localTime = LocalTime.parse(time);
+                    price = current.priceAt(sku, SkuPriceIndex.toMinuteOfDay(localTime));
+                } catch (DateTimeParseException e) {
+                    quotes.add(new PriceQuote(skuId, time, null, PriceQuote.Status.INVALID_TIME));
+                    continue;
+                }
+            } else {
+                price = defaultPrice(current, sku);
+            }
+
+            if (Double.isNaN(price)) {
+                quotes.add(new PriceQuote(skuId, time, null, PriceQuote.Status.NOT_SET));
+                notSet++;
+            } else {
+                quotes.add(new PriceQuote(skuId, time, price, PriceQuote.Status.OK));
+                priced++;
+            }
+        }
+        metrics.batch(PricingMetrics.Operation.BATCH, start, priced, notSet, notFound);
+        return quotes;
+    }
+
+    /** The rows of the price list in effect today, stamped with its effective date. */
     public Map<String, List<PricingRecord>> getAllPricingData() {
-        return new HashMap<>(pricingData);
+        PriceListVersions all = versions.get();
+        LocalDate today = LocalDate.now(clock);
+        LocalDate date = all.effectiveDate(today);
+        return all.at(today).toRecords(PriceListVersions.UNDATED.equals(date) ? null : date);
+    }
+
+    /**
+     * Opens a streaming export of the price list in effect on {@code date} (today's when {@code
+     * null}). The list is pinned now, so loads published while the rows are written do not tear
+     * the export, and rows go from the snapshot columns to the stream through a fixed buffer
+     * instead of being materialized like {@link #getAllPricingData}.
+     */
+    public PricingExport exportPricingData(LocalDate date, PricingExport.Format format) {
+        PriceListVersions all = versions.get();
+        long version = snapshot.get().version();
+        LocalDate day = date != null ? date : LocalDate.now(clock);
+        LocalDate listDate = all.effectiveDate(day);
+        PricingSnapshot list = all.at(day);
+        return new PricingExport(
+                format,
+                version,
+                listDate == null || PriceListVersions.UNDATED.equals(listDate)
+                        ? null
+                        : listDate.toString(),
+                out -> {
+                    long start = System.nanoTime();
+                    long rows =
+                            format == PricingExport.Format.TSV
+                                    ? PricingExporter.writeTsv(list, out)
+                                    : PricingExporter.writeNdjson(list, out);
+                    LOGGER.info(
+                            "Exported {} pricing rows as {} in {} ms",
+                            rows,
+                            format,
+                            (System.nanoTime() - start) / 1_000_000);
+                    return rows;
+                });
     }
 
     public boolean skuExists(String skuId) {
-        return pricingData.containsKey(skuId);
+        return snapshot.get().contains(skuId);
+    }
+
+    /** Whether the SKU is part of the price list in effect on {@code date}. */
+    public boolean skuExists(String skuId, LocalDate date) {
+        return versions.get().at(date).contains(skuId);
+    }
+
+    /** Whether any price list is loaded, even one that has not taken effect yet. */
+    public boolean isDataLoaded() {
+        return !versions.get().isEmpty();
+    }
+
+    /** Whether a price list without an effective date is loaded. */
+    public boolean hasUndatedPriceList() {
+        return versions.get().lists().containsKey(PriceListVersions.UNDATED);
+    }
+
+    /** The effective dates of the dated price lists, in order, including future ones. */
+    public List<LocalDate> getEffectiveDates() {
+        NavigableMap<LocalDate, PricingSnapshot> lists = versions.get().lists();
+        return List.copyOf(lists.tailMap(PriceListVersions.UNDATED, false).keySet());
+    }
+
+    /**
+     * The effective date of the list in effect today, or {@code null} if that is the undated list
+     * or no list is in effect yet.
+     */
+    public LocalDate getEffectiveDate() {
+        LocalDate date = versions.get().effectiveDate(LocalDate.now(clock));
+        return PriceListVersions.UNDATED.equals(date) ? null : date;
+    }
+
+    /**
+     * Increases by one with every full load, dated load, snapshot load or delta that is published,
+     * and when a preloaded list takes effect.
+     */
+    public long getDataVersion() {
+        return snapshot.get().version();
+    }
+
+    /** Whether the SKU is in this instance's shard, which is always true without partitioning. */
+    public boolean ownsSku(String skuId) {
+        return shard.owns(skuId);
+    }
+
+    /**
+     * Base URL of the node serving the SKU's shard, or {@code null} if {@code pricing.shard.nodes}
+     * is not configured.
+     */
+    public URI getOwnerNode(String skuId) {
+        PricingShard owned = shard;
+        return owned.nodeOf(owned.shardOf(skuId));
+    }
+
+    /** Which part of the catalog this instance serves. */
+    public ShardAssignment getShardAssignment() {
+        PricingShard owned = shard;
+        return new ShardAssignment(
+                owned.index(),
+                owned.count(),
+                owned.hashRangeStart(),
+                owned.hashRangeEnd(),
+                owned.nodes().stream().map(URI::toString).toList());
+    }
+
+    /** The shard owning the SKU, whether or not this instance is the one serving it. */
+    public int getShardOf(String skuId) {
+        return shard.shardOf(skuId);
+    }
+
+    /** The pool for full loads, or {@code null} when they run on the calling thread. */
+    private synchronized ForkJoinPool loadPool() {
+        if (loadParallelism == 1) {
+            return null;
+        }
+        if (loadParallelism <= 0) {
+            return ForkJoinPool.commonPool();
+        }
+        if (loadPool == null) {
+            loadPool = new ForkJoinPool(loadParallelism);
+        }
+        return loadPool;
+    }
+
+    /** Publishes a new set of price lists and serves the one in effect today. */
+    private synchronized PricingSnapshot publish(PriceListVersions next) {
+        versions.set(next);
+        PricingSnapshot current = publishCurrent(next);
+        refreshCurrentPrices();
+        return current;
+    }
+
+    private synchronized PricingSnapshot publishCurrent(PriceListVersions all) {
+        LocalDate today = LocalDate.now(clock);
+        PricingSnapshot current = all.at(today).withVersion(snapshot.get().version() + 1);
+        effectiveDate = all.effectiveDate(today);
+        snapshot.set(current);
+        reverseIndex = null; // So the old snapshot is not kept alive by its index
+        ForkJoinPool pool = loadPool();
+        (pool != null ? pool : ForkJoinPool.commonPool()).execute(this::reverseIndex);
+        return current;
+    }
+
+    /**
+     * The reverse index of the published snapshot. Every publish starts building it on the load
+     * pool, outside the publish lock; a search that arrives before the build is done waits for it
+     * on the index's own lock, so loads and lookups never do.
+     */
+    private PriceReverseIndex reverseIndex() {
+        PriceReverseIndex index = reverseIndex;
+        PricingSnapshot current = snapshot.get();
+        if (index != null && index.snapshot() == current) {
+            return index;
+        }
+        synchronized (reverseIndexLock) {
+            index = reverseIndex;
+            current = snapshot.get();
+            if (index == null || index.snapshot() != current) {
+                index = new PriceReverseIndex(current);
+                reverseIndex = index;
+            }
+            return index;
+        }
+    }
+
+    /** The reverse index built so far, which may still be a previous snapshot's; for tests. */
+    PriceReverseIndex builtReverseIndex() {
+        return reverseIndex;
+    }
+
+    private long reverseIndexBytes() {
+        PriceReverseIndex index = reverseIndex;
+        return index == null ? 0 : index.estimatedBytes();
+    }
+
+    /** Why a SKU is not in the list: another instance serves it, or it is unknown. */
+    private static PriceQuote.Status notFoundStatus(PricingShard owned, String skuId) {
+        return skuId != null && !owned.owns(skuId)
+                ? PriceQuote.Status.OTHER_SHARD
+                : PriceQuote.Status.NOT_FOUND;
+    }
+
+    /** The price quoted when no time is given: the current price or the first row's price. */
+    private double defaultPrice(PricingSnapshot current, int sku) {
+        if (!currentPriceCacheEnabled) {
+            int firstRow = current.firstRow(sku);
+            return current.endRow(sku) > firstRow ? current.rowPrice(firstRow) : Double.NaN;
+        }
+        CurrentPriceCache cache = currentPrices;
+        if (cache != null
+                && cache.snapshot() == current
+                && cache.isCurrent(clock.millis() / 60_000)) {
+            return cache.price(sku);
+        }
+        // The minute rolled over (or a load just landed) before the refresh ran
+        return current.priceAt(sku, SkuPriceIndex.toMinuteOfDay(LocalTime.now(clock)));
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Visits {@code [fromMinute, toMinute)}, as two ranges when it wraps past midnight. */
+    private static void visitRange(
+            PricingSnapshot list,
+            int sku,
+            int fromMinute,
+            int toMinute,
+            PricingSnapshot.SegmentVisitor visitor) {
+        if (fromMinute <= toMinute) {
+            list.visitSegments(sku, fromMinute, toMinute, visitor);
+        } else {
+            list.visitSegments(sku, fromMinute, SkuPriceIndex.MINUTES_PER_DAY, visitor);
+            list.visitSegments(sku, 0, toMinute, visitor);
+        }
+    }
+
+    private static int fromMinute(LocalTime from) {
+        return from == null ? 0 : SkuPriceIndex.toMinuteOfDay(from);
+    }
+
+    private static int toMinute(LocalTime to) {
+        return to == null ? SkuPriceIndex.MINUTES_PER_DAY : SkuPriceIndex.toMinuteOfDay(to);
+    }
+
+    /** Running min, max and minute-weighted sum of the segments visited for one SKU. */
+    private static final class RangeStats implements PricingSnapshot.SegmentVisitor {
+
+        private double min;
+        private double max;
+        private double weightedSum;
+        private int minutes;
+
+        void reset() {
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            weightedSum = 0;
+            minutes = 0;
+        }
+
+        @Override
+        public void visit(int startMinute, int endMinute, double price) {
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+            weightedSum += price * (endMinute - startMinute);
+            minutes += endMinute - startMinute;
+        }
+    }
+
+    /** Formats a minute of the day as HH:mm, with the end of the day as 24:00. */
+    private static String formatMinute(int minuteOfDay) {
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    /**
+     * Brings the snapshot file of the list under {@code date} in line with the published versions:
+     * written if the list is there, deleted if a full load dropped it. The files are synced under a
+     * lock of their own from whatever is published at that point, never from the caller's list, so
+     * a load that lost the race to persist rewrites the newer list instead of its own and files
+     * land in publish order. A full load also removes the files of the dated lists it dropped.
+     */
+    private void persist(LocalDate date) {
+        if (snapshotPath == null || snapshotPath.isBlank()) {
+            return;
+        }
+        Path path = Path.of(snapshotPath);
+        synchronized (persistLock) {
+            Map<LocalDate, PricingSnapshot> lists = versions.get().lists();
+            try {
+                if (PriceListVersions.UNDATED.equals(date)) {
+                    for (Map.Entry<LocalDate, Path> dated : datedSnapshotFiles(path).entrySet()) {
+                        if (!lists.containsKey(dated.getKey())) {
+                            Files.deleteIfExists(dated.getValue());
+                            persisted.remove(dated.getKey());
+                        }
+                    }
+                } else {
+                    path = path.resolveSibling(path.getFileName() + "." + date);
+                }
+                PricingSnapshot list = lists.get(date);
+                if (list == null) {
+                    Files.deleteIfExists(path);
+                    persisted.remove(date);
+                } else if (persisted.get(date) != list) {
+                    PricingSnapshotFile.write(list, path);
+                    persisted.put(date, list);
+                }
+            } catch (IOException e) {
+                // The load itself succeeded; only the next restart falls back to re-parsing
+                LOGGER.warn("Could not write pricing snapshot to {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /** The {@code <path>.<yyyy-MM-dd>} files next to {@code path}, by date. */
+    private static Map<LocalDate, Path> datedSnapshotFiles(Path path) throws IOException {
+        Map<LocalDate, Path> files = new TreeMap<>();
+        Path directory = path.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : entries) {
+                try {
+                    String name = file.getFileName().toString();
+                    files.put(LocalDate.parse(name.substring(prefix.length())), file);
+                } catch (DateTimeParseException e) {
+                    // Some other file sharing the prefix, such as a temporary copy
+                }
+            }
+        }
+        return files;
     }
 }
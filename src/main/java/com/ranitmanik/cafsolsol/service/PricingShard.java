@@ -0,0 +1,150 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Assignment of SKUs to the instances of a partitioned deployment.
+ *
+ * <p>The 32-bit hash space is cut into {@code count} contiguous ranges of equal size and instance
+ * {@code index} owns the SKUs whose hash falls into range {@code index}. The hash only depends on
+ * the SKU id, so every instance computes the same assignment from its own configuration, and any
+ * of them can tell which node owns a SKU.
+ */
+final class PricingShard {
+
+    private static final long HASH_SPACE = 1L << 32;
+
+    private final int index;
+    private final int count;
+    private final List<URI> nodes;
+
+    /**
+     * @param nodes base URLs of the instances by shard index, or an empty list if they are not
+     *     known, in which case requests for other shards cannot be redirected
+     */
+    PricingShard(int index, int count, List<URI> nodes) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException(
+                    "Shard index " + index + " is out of range for " + count + " shards");
+        }
+        if (!nodes.isEmpty() && nodes.size() != count) {
+            throw new IllegalArgumentException(
+                    "Expected " + count + " shard nodes but got " + nodes.size());
+        }
+        this.index = index;
+        this.count = count;
+        this.nodes = List.copyOf(nodes);
+    }
+
+    int index() {
+        return index;
+    }
+
+    int count() {
+        return count;
+    }
+
+    List<URI> nodes() {
+        return nodes;
+    }
+
+    /** The shard owning the SKU. */
+    int shardOf(String skuId) {
+        return (int) ((hash(skuId) & 0xffffffffL) * count >>> 32);
+    }
+
+    boolean owns(String skuId) {
+        return count == 1 || shardOf(skuId) == index;
+    }
+
+    /** Base URL of the node serving the shard, or {@code null} if the nodes are not configured. */
+    URI nodeOf(int shard) {
+        return nodes.isEmpty() ? null : nodes.get(shard);
+    }
+
+    /** First unsigned hash of the range owned by this instance. */
+    long hashRangeStart() {
+        return rangeStart(index);
+    }
+
+    /** End (exclusive) of the unsigned hash range owned by this instance. */
+    long hashRangeEnd() {
+        return rangeStart(index + 1);
+    }
+
+    /** Wraps a handler so that it only sees the rows of SKUs this instance owns. */
+    PricingRowHandler filter(PricingRowHandler handler) {
+        if (count == 1) {
+            return handler;
+        }
+        return (skuId, startMinute, endMinute, price) -> {
+            if (owns(skuId)) {
+                handler.onRow(skuId, startMinute, endMinute, price);
+            }
+        };
+    }
+
+    /** Wraps a delta handler so that it only sees the upserts and deletions of owned SKUs. */
+    PricingDeltaHandler filter(PricingDeltaHandler handler) {
+        if (count == 1) {
+            return handler;
+        }
+        return new PricingDeltaHandler() {
+            @Override
+            public void onRow(String skuId, int startMinute, int endMinute, double price) {
+                if (owns(skuId)) {
+                    handler.onRow(skuId, startMinute, endMinute, price);
+                }
+            }
+
+            @Override
+            public void onDelete(String skuId, int startMinute, int endMinute) {
+                if (owns(skuId)) {
+                    handler.onDelete(skuId, startMinute, endMinute);
+                }
+            }
+        };
+    }
+
+    /** Copies the owned SKUs of a snapshot, such as one mapped from a shared file, to the heap. */
+    PricingSnapshot filter(PricingSnapshot snapshot) {
+        if (count == 1) {
+            return snapshot;
+        }
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        for (int sku = 0; sku < snapshot.skuCount(); sku++) {
+            String skuId = snapshot.skuId(sku);
+            if (!snapshot.isLive(sku) || !owns(skuId)) {
+                continue;
+            }
+            for (int row = snapshot.firstRow(sku); row < snapshot.endRow(sku); row++) {
+                builder.onRow(
+                        skuId,
+                        snapshot.rowStart(row),
+                        snapshot.rowEnd(row),
+                        snapshot.rowPrice(row));
+            }
+        }
+        return builder.build();
+    }
+
+    private long rangeStart(int shard) {
+        // Smallest hash h with h * count >>> 32 == shard
+        return (shard * HASH_SPACE + count - 1) / count;
+    }
+
+    /**
+     * Spreads {@link String#hashCode}, which is fixed by the language specification and therefore
+     * the same on every node, over the whole hash space with the MurmurHash3 finalizer.
+     */
+    static int hash(String skuId) {
+        int h = skuId.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,575 @@
+package com.ranitmanik.cafsolsol.service;
+
+import com.ranitmanik.cafsolsol.model.PricingRecord;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Immutable view of one fully loaded pricing dataset.
+ *
+ * <p>A snapshot is built off to the side and published by {@link PricingService} with a single
+ * reference swap, so readers never lock and never observe a half-loaded dataset.
+ *
+ * <p>Data is laid out in columns indexed by SKU ordinal: the rows of SKU {@code s} live at {@code
+ * [rowOffsets[s], rowOffsets[s + 1])} of the row columns and its resolved segments at {@code
+ * [segmentOffsets[s], segmentOffsets[s + 1])} of the segment columns. The columns are NIO buffers
+ * so the same layout can wrap heap arrays or a memory-mapped {@link PricingSnapshotFile}.
+ *
+ * <p>A {@link PricingDelta} publishes a new snapshot without copying untouched data: the base
+ * columns are shared and the changed SKUs live in a small overlay snapshot whose ordinals, rows and
+ * segments are numbered after the base ones. A base SKU that also appears in the overlay is
+ * shadowed by it, and an overlay SKU without rows marks a deletion. Ordinal-based iteration must
+ * therefore skip ordinals that are not {@link #isLive live}.
+ */
+final class PricingSnapshot {
+
+    static final PricingSnapshot EMPTY =
+            new PricingSnapshot(
+                    new SkuDictionary(),
+                    IntBuffer.wrap(new int[1]),
+                    IntBuffer.allocate(0),
+                    IntBuffer.allocate(0),
+                    DoubleBuffer.allocate(0),
+                    IntBuffer.wrap(new int[1]),
+                    IntBuffer.allocate(0),
+                    DoubleBuffer.allocate(0),
+                    false);
+
+    private final SkuDictionary skuIds;
+    private final IntBuffer rowOffsets;
+    private final IntBuffer rowStarts;
+    private final IntBuffer rowEnds;
+    private final DoubleBuffer rowPrices;
+    private final IntBuffer segmentOffsets;
+    private final IntBuffer segmentBreaks;
+    private final DoubleBuffer segmentPrices;
+    private final boolean loaded;
+    private final PricingSnapshot overlay;
+    private final int liveSkus;
+    private final long version;
+
+    PricingSnapshot(
+            SkuDictionary skuIds,
+            IntBuffer rowOffsets,
+            IntBuffer rowStarts,
+            IntBuffer rowEnds,
+            DoubleBuffer rowPrices,
+            IntBuffer segmentOffsets,
+            IntBuffer segmentBreaks,
+            DoubleBuffer segmentPrices,
+            boolean loaded) {
+        this.skuIds = skuIds;
+        this.rowOffsets = rowOffsets;
+        this.rowStarts = rowStarts;
+        this.rowEnds = rowEnds;
+        this.rowPrices = rowPrices;
+        this.segmentOffsets = segmentOffsets;
+        this.segmentBreaks = segmentBreaks;
+        this.segmentPrices = segmentPrices;
+        this.loaded = loaded;
+        this.overlay = null;
+        this.liveSkus = skuIds.size();
+        this.version = 0;
+    }
+
+    /** Shares the base columns of {@code base} under a different overlay or version. */
+    private PricingSnapshot(
+            PricingSnapshot base, PricingSnapshot overlay, int liveSkus, long version) {
+        this.skuIds = base.skuIds;
+        this.rowOffsets = base.rowOffsets;
+        this.rowStarts = base.rowStarts;
+        this.rowEnds = base.rowEnds;
+        this.rowPrices = base.rowPrices;
+        this.segmentOffsets = base.segmentOffsets;
+        this.segmentBreaks = base.segmentBreaks;
+        this.segmentPrices = base.segmentPrices;
+        this.loaded = base.loaded;
+        this.overlay = overlay;
+        this.liveSkus = liveSkus;
+        this.version = version;
+    }
+
+    /** Returns this dataset with a different version number; the data itself is shared. */
+    PricingSnapshot withVersion(long version) {
+        return new PricingSnapshot(this, overlay, liveSkus, version);
+    }
+
+    /**
+     * Returns a snapshot that keeps this snapshot's base columns and replaces its overlay, if any,
+     * with {@code changes}. Only the overlay is visited, so the cost is independent of the size of
+     * the base.
+     */
+    PricingSnapshot withOverlay(PricingSnapshot changes) {
+        int live = skuIds.size();
+        for (int sku = 0; sku < changes.skuCount(); sku++) {
+            boolean inBase = skuIds.ordinalOf(changes.skuIds, sku) >= 0;
+            boolean hasRows = changes.endRow(sku) > changes.firstRow(sku);
+            if (inBase && !hasRows) {
+                live--;
+            } else if (!inBase && hasRows) {
+                live++;
+            }
+        }
+        return new PricingSnapshot(this, changes, live, version);
+    }
+
+    /** Folds the overlay into fresh flat columns; returns this snapshot if it has no overlay. */
+    PricingSnapshot compact() {
+        if (overlay == null) {
+            return this;
+        }
+        Builder builder = new Builder();
+        for (int sku = 0; sku < skuCount(); sku++) {
+            if (isLive(sku)) {
+                String skuId = skuId(sku);
+                for (int row = firstRow(sku); row < endRow(sku); row++) {
+                    builder.onRow(skuId, rowStart(row), rowEnd(row), rowPrice(row));
+                }
+            }
+        }
+        return builder.build().withVersion(version);
+    }
+
+    /** This snapshot without its overlay: the shared base columns on their own. */
+    PricingSnapshot base() {
+        return overlay == null ? this : new PricingSnapshot(this, null, skuIds.size(), version);
+    }
+
+    /** Whether the SKU has exactly the same rows, in the same order, in both snapshots. */
+    boolean sameRows(int sku, PricingSnapshot other, int otherSku) {
+        int row = firstRow(sku);
+        int otherRow = other.firstRow(otherSku);
+        int count = endRow(sku) - row;
+        if (count != other.endRow(otherSku) - otherRow) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (rowStart(row + i) != other.rowStart(otherRow + i)
+                    || rowEnd(row + i) != other.rowEnd(otherRow + i)
+                    || Double.doubleToLongBits(rowPrice(row + i))
+                            != Double.doubleToLongBits(other.rowPrice(otherRow + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long version() {
+        return version;
+    }
+
+    /** The changed SKUs layered over the base columns, or {@code null} if there are none. */
+    PricingSnapshot overlay() {
+        return overlay;
+    }
+
+    /** Whether the SKU is part of the shared base columns, shadowed or not. */
+    boolean baseContains(String skuId) {
+        return skuIds.ordinalOf(skuId) >= 0;
+    }
+
+    int baseRowCount() {
+        return rowStarts.limit();
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the ordinal of the SKU, or -1 if it is not part of this snapshot. Takes any {@code
+     * CharSequence} and allocates nothing, so request paths can look up ids as they come.
+     */
+    int ordinalOf(CharSequence skuId) {
+        if (overlay != null) {
+            int changed = overlay.ordinalOf(skuId);
+            if (changed >= 0) {
+                return overlay.endRow(changed) > overlay.firstRow(changed)
+                        ? skuIds.size() + changed
+                        : -1;
+            }
+        }
+        return skuIds.ordinalOf(skuId);
+    }
+
+    boolean contains(CharSequence skuId) {
+        return ordinalOf(skuId) >= 0;
+    }
+
+    /** Size of the ordinal space, including ordinals that are shadowed or deleted. */
+    int skuCount() {
+        return overlay == null ? skuIds.size() : skuIds.size() + overlay.skuCount();
+    }
+
+    /** Number of SKUs a lookup can find. */
+    int liveSkuCount() {
+        return liveSkus;
+    }
+
+    /** Whether the ordinal is visible, i.e. neither shadowed by the overlay nor deleted. */
+    boolean isLive(int sku) {
+        if (overlay == null) {
+            return true;
+        }
+        int base = skuIds.size();
+        if (sku < base) {
+            return overlay.skuIds.ordinalOf(skuIds, sku) < 0;
+        }
+        return overlay.endRow(sku - base) > overlay.firstRow(sku - base);
+    }
+
+    String skuId(int sku) {
+        int base = skuIds.size();
+        return sku < base ? skuIds.get(sku) : overlay.skuId(sku - base);
+    }
+
+    int rowCount() {
+        return overlay == null ? rowStarts.limit() : rowStarts.limit() + overlay.rowCount();
+    }
+
+    int segmentCount() {
+        return overlay == null
+                ? segmentBreaks.limit()
+                : segmentBreaks.limit() + overlay.segmentCount();
+    }
+
+    int firstRow(int sku) {
+        int base = skuIds.size();
+        return sku < base ? rowOffsets.get(sku) : rowStarts.limit() + overlay.firstRow(sku - base);
+    }
+
+    int endRow(int sku) {
+        int base = skuIds.size();
+        return sku < base
+                ? rowOffsets.get(sku + 1)
+                : rowStarts.limit() + overlay.endRow(sku - base);
+    }
+
+    int rowStart(int row) {
+        int base = rowStarts.limit();
+        return row < base ? rowStarts.get(row) : overlay.rowStart(row - base);
+    }
+
+    int rowEnd(int row) {
+        int base = rowStarts.limit();
+        return row < base ? rowEnds.get(row) : overlay.rowEnd(row - base);
+    }
+
+    double rowPrice(int row) {
+        int base = rowStarts.limit();
+        return row < base ? rowPrices.get(row) : overlay.rowPrice(row - base);
+    }
+
+    int firstSegment(int sku) {
+        int base = skuIds.size();
+        return sku < base
+                ? segmentOffsets.get(sku)
+                : segmentBreaks.limit() + overlay.firstSegment(sku - base);
+    }
+
+    int endSegment(int sku) {
+        int base = skuIds.size();
+        return sku < base
+                ? segmentOffsets.get(sku + 1)
+                : segmentBreaks.limit() + overlay.endSegment(sku - base);
+    }
+
+    int segmentBreak(int segment) {
+        int base = segmentBreaks.limit();
+        return segment < base ? segmentBreaks.get(segment) : overlay.segmentBreak(segment - base);
+    }
+
+    double segmentPrice(int segment) {
+        int base = segmentBreaks.limit();
+        return segment < base ? segmentPrices.get(segment) : overlay.segmentPrice(segment - base);
+    }
+
+    /**
+     * Rough size of the columns and dictionary, counting mapped columns and the dictionary's
+     * off-heap arena too since they stay resident.
+     */
+    long estimatedBytes() {
+        long skus = skuIds.size();
+        long bytes =
+                rowStarts.limit() * 16L
+                        + segmentBreaks.limit() * 12L
+                        + (skus + 1) * 8L
+                        + skuIds.estimatedBytes();
+        return overlay == null ? bytes : bytes + overlay.estimatedBytes();
+    }
+
+    /** Returns the winning price of the SKU at the minute, or {@code NaN} if none is set. */
+    double priceAt(int sku, int minuteOfDay) {
+        int base = skuIds.size();
+        if (sku >= base) {
+            return overlay.priceAt(sku - base, minuteOfDay);
+        }
+        int segment =
+                SkuPriceIndex.segmentAt(
+                        segmentBreaks, firstSegment(sku), endSegment(sku), minuteOfDay);
+        return segment < 0 ? Double.NaN : segmentPrices.get(segment);
+    }
+
+    /**
+     * Returns the absolute position of the segment of the SKU covering the minute, or -1 if the
+     * minute precedes its first segment.
+     */
+    int segmentAt(int sku, int minuteOfDay) {
+        int base = skuIds.size();
+        if (sku >= base) {
+            int segment = overlay.segmentAt(sku - base, minuteOfDay);
+            return segment < 0 ? -1 : segmentBreaks.limit() + segment;
+        }
+        return SkuPriceIndex.segmentAt(
+                segmentBreaks, firstSegment(sku), endSegment(sku), minuteOfDay);
+    }
+
+    /** Receives the priced parts of a SKU's segments as {@code [start, end)} minutes of the day. */
+    interface SegmentVisitor {
+        void visit(int startMinute, int endMinute, double price);
+    }
+
+    /**
+     * Visits, in order, the priced segments of the SKU that overlap {@code [fromMinute,
+     * toMinute)}, clipped to that range. Finding the first segment is a binary search; the rest is
+     * a walk over the sorted segments, so a range costs the segments it spans, not its minutes.
+     */
+    void visitSegments(int sku, int fromMinute, int toMinute, SegmentVisitor visitor) {
+        int end = endSegment(sku);
+        int segment = segmentAt(sku, fromMinute);
+        if (segment < 0) {
+            segment = firstSegment(sku);
+        }
+        for (; segment < end; segment++) {
+            int start = segmentBreak(segment);
+            if (start >= toMinute) {
+                return;
+            }
+            double price = segmentPrice(segment);
+            if (!Double.isNaN(price)) {
+                int stop =
+                        segment + 1 < end
+                                ? segmentBreak(segment + 1)
+                                : SkuPriceIndex.MINUTES_PER_DAY;
+                visitor.visit(Math.max(start, fromMinute), Math.min(stop, toMinute), price);
+            }
+        }
+    }
+
+    /** Materializes the rows as {@link PricingRecord}s; only meant for bulk views of the data. */
+    Map<String, List<PricingRecord>> toRecords() {
+        return toRecords(null);
+    }
+
+    /** Like {@link #toRecords()}, stamping every record with the list's effective date. */
+    Map<String, List<PricingRecord>> toRecords(LocalDate effectiveDate) {
+        Map<String, List<PricingRecord>> records = new HashMap<>(liveSkuCount() * 4 / 3 + 1);
+        for (int sku = 0; sku < skuCount(); sku++) {
+            if (!isLive(sku)) {
+                continue;
+            }
+            String skuId = skuId(sku);
+            List<PricingRecord> list = new ArrayList<>(endRow(sku) - firstRow(sku));
+            for (int row = firstRow(sku); row < endRow(sku); row++) {
+                list.add(
+                        new PricingRecord(
+                                skuId,
+                                toLocalTime(rowStart(row)),
+                                toLocalTime(rowEnd(row)),
+                                rowPrice(row),
+                                effectiveDate));
+            }
+            records.put(skuId, list);
+        }
+        return records;
+    }
+
+    private static LocalTime toLocalTime(int minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    /**
+     * Appends parsed rows to primitive columns in file order and, once the input is exhausted,
+     * groups them by SKU and resolves the segment index.
+     */
+    static final class Builder implements PricingRowHandler {
+
+        private final SkuDictionary skuIds = new SkuDictionary();
+        private int[] rowSkus = new int[1024];
+        private int[] rowStarts = new int[1024];
+        private int[] rowEnds = new int[1024];
+        private double[] rowPrices = new double[1024];
+        private int rowCount;
+
+        @Override
+        public void onRow(String skuId, int startMinute, int endMinute, double price) {
+            if (rowCount == rowSkus.length) {
+                grow(rowCount * 2);
+            }
+            rowSkus[rowCount] = skuIds.intern(skuId);
+            rowStarts[rowCount] = startMinute;
+            rowEnds[rowCount] = endMinute;
+            rowPrices[rowCount] = price;
+            rowCount++;
+        }
+
+        /**
+         * Appends every row of {@code other} after the rows added so far, as if they had been read
+         * next. SKU ids are interned once per distinct SKU of {@code other}, not once per row.
+         */
+        void append(Builder other) {
+            int[] ordinals = new int[other.skuIds.size()];
+            for (int sku = 0; sku < ordinals.length; sku++) {
+                ordinals[sku] = skuIds.intern(other.skuIds.get(sku));
+            }
+            if (rowCount + other.rowCount > rowSkus.length) {
+                grow(Math.max(rowCount + other.rowCount, rowCount * 2));
+            }
+            for (int row = 0; row < other.rowCount; row++) {
+                rowSkus[rowCount + row] = ordinals[other.rowSkus[row]];
+            }
+            System.arraycopy(other.rowStarts, 0, rowStarts, rowCount, other.rowCount);
+            System.arraycopy(other.rowEnds, 0, rowEnds, rowCount, other.rowCount);
+            System.arraycopy(other.rowPrices, 0, rowPrices, rowCount, other.rowCount);
+            rowCount += other.rowCount;
+        }
+
+        /** Registers a SKU without rows; in an overlay this deletes the SKU from the base. */
+        void tombstone(String skuId) {
+            skuIds.intern(skuId);
+        }
+
+        PricingSnapshot build() {
+            return build(null);
+        }
+
+        /**
+         * Builds the snapshot, resolving the segment index on {@code pool} in slices of roughly
+         * equal row counts, or on the calling thread when {@code pool} is {@code null}.
+         */
+        PricingSnapshot build(ForkJoinPool pool) {
+            int skuCount = skuIds.size();
+
+            // Stable counting sort by SKU ordinal keeps the file order within each SKU
+            int[] rowOffsets = new int[skuCount + 1];
+            for (int row = 0; row < rowCount; row++) {
+                rowOffsets[rowSkus[row] + 1]++;
+            }
+            for (int sku = 0; sku < skuCount; sku++) {
+                rowOffsets[sku + 1] += rowOffsets[sku];
+            }
+            int[] cursor = Arrays.copyOf(rowOffsets, skuCount);
+            int[] starts = new int[rowCount];
+            int[] ends = new int[rowCount];
+            double[] prices = new double[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                int target = cursor[rowSkus[row]]++;
+                starts[target] = rowStarts[row];
+                ends[target] = rowEnds[row];
+                prices[target] = rowPrices[row];
+            }
+            // The file-order columns are no longer needed; let them go before resolving
+            rowSkus = null;
+            rowStarts = null;
+            rowEnds = null;
+            rowPrices = null;
+
+            // Each slice resolves its SKUs into its own index with slice-relative offsets
+            int slices = pool == null ? 1 : Math.min(pool.getParallelism() * 4, skuCount);
+            int[] sliceStarts = new int[slices + 1];
+            int sku = 0;
+            for (int slice = 1; slice < slices; slice++) {
+                long rowTarget = (long) rowCount * slice / slices;
+                while (sku < skuCount && rowOffsets[sku] < rowTarget) {
+                    sku++;
+                }
+                sliceStarts[slice] = sku;
+            }
+            sliceStarts[slices] = skuCount;
+            int[] segmentOffsets = new int[skuCount + 1];
+            SkuPriceIndex[] indexes = new SkuPriceIndex[slices];
+            if (pool == null) {
+                indexes[0] = resolve(starts, ends, prices, rowOffsets, segmentOffsets, 0, skuCount);
+            } else {
+                List<ForkJoinTask<SkuPriceIndex>> tasks = new ArrayList<>(slices);
+                for (int slice = 0; slice < slices; slice++) {
+                    int from = sliceStarts[slice];
+                    int to = sliceStarts[slice + 1];
+                    tasks.add(
+                            pool.submit(
+                                    () ->
+                                            resolve(
+                                                    starts,
+                                                    ends,
+                                                    prices,
+                                                    rowOffsets,
+                                                    segmentOffsets,
+                                                    from,
+                                                    to)));
+                }
+                for (int slice = 0; slice < slices; slice++) {
+                    indexes[slice] = tasks.get(slice).join();
+                }
+            }
+
+            int segmentCount = 0;
+            for (SkuPriceIndex index : indexes) {
+                segmentCount += index.size();
+            }
+            int[] breaks = new int[segmentCount];
+            double[] segmentPrices = new double[segmentCount];
+            int base = 0;
+            for (int slice = 0; slice < slices; slice++) {
+                for (int s = sliceStarts[slice]; s < sliceStarts[slice + 1]; s++) {
+                    segmentOffsets[s] += base;
+                }
+                indexes[slice].copyTo(breaks, segmentPrices, base);
+                base += indexes[slice].size();
+            }
+            segmentOffsets[skuCount] = segmentCount;
+
+            return new PricingSnapshot(
+                    skuIds,
+                    IntBuffer.wrap(rowOffsets),
+                    IntBuffer.wrap(starts),
+                    IntBuffer.wrap(ends),
+                    DoubleBuffer.wrap(prices),
+                    IntBuffer.wrap(segmentOffsets),
+                    IntBuffer.wrap(breaks),
+                    DoubleBuffer.wrap(segmentPrices),
+                    true);
+        }
+
+        private static SkuPriceIndex resolve(
+                int[] starts,
+                int[] ends,
+                double[] prices,
+                int[] rowOffsets,
+                int[] segmentOffsets,
+                int fromSku,
+                int toSku) {
+            SkuPriceIndex index = new SkuPriceIndex();
+            for (int sku = fromSku; sku < toSku; sku++) {
+                segmentOffsets[sku] = index.size();
+                index.resolve(starts, ends, prices, rowOffsets[sku], rowOffsets[sku + 1]);
+            }
+            return index;
+        }
+
+        private void grow(int capacity) {
+            rowSkus = Arrays.copyOf(rowSkus, capacity);
+            rowStarts = Arrays.copyOf(rowStarts, capacity);
+            rowEnds = Arrays.copyOf(rowEnds, capacity);
+            rowPrices = Arrays.copyOf(rowPrices, capacity);
+        }
+    }
+}
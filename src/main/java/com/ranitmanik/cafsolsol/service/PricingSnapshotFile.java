@@ -0,0 +1,286 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary form of a {@link PricingSnapshot} that can be reopened without re-parsing.
+ *
+ * <p>Layout (little-endian, every section starts on an 8-byte boundary):
+ *
+ * <pre>
+ * header           magic, version, skuCount, rowCount, segmentCount, dictionaryBytes
+ * dictionary       per SKU: int length + UTF-8 bytes
+ * rowOffsets       int[skuCount + 1]
+ * rowStarts        int[rowCount]
+ * rowEnds          int[rowCount]
+ * rowPrices        double[rowCount]
+ * segmentOffsets   int[skuCount + 1]
+ * segmentBreaks    int[segmentCount]
+ * segmentPrices    double[segmentCount]
+ * </pre>
+ *
+ * <p>On open only the SKU dictionary is decoded onto the heap; every column is a read-only view
+ * of its own {@link FileChannel#map mapping}, so startup cost does not grow with the catalog and
+ * the bulk of the data stays off-heap in the page cache.
+ */
+final class PricingSnapshotFile {
+
+    private static final int MAGIC = 0x50524331; // "PRC1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private PricingSnapshotFile() {}
+
+    /**
+     * Writes the snapshot next to {@code path} and atomically moves it into place. A delta overlay
+     * is folded into the base first, since the file holds a single flat layout.
+     */
+    static void write(PricingSnapshot snapshot, Path path) throws IOException {
+        snapshot = snapshot.compact();
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            Writer out = new Writer(channel);
+            byte[][] names = new byte[snapshot.skuCount()][];
+            int dictionaryBytes = 0;
+            for (int sku = 0; sku < names.length; sku++) {
+                names[sku] = snapshot.skuId(sku).getBytes(StandardCharsets.UTF_8);
+                dictionaryBytes += Integer.BYTES + names[sku].length;
+            }
+
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(snapshot.skuCount());
+            out.putInt(snapshot.rowCount());
+            out.putInt(snapshot.segmentCount());
+            out.putInt(dictionaryBytes);
+            for (byte[] name : names) {
+                out.putInt(name.length);
+                out.put(name);
+            }
+            out.align();
+
+            for (int sku = 0; sku < snapshot.skuCount(); sku++) {
+                out.putInt(snapshot.firstRow(sku));
+            }
+            out.putInt(snapshot.rowCount());
+            out.align();
+            for (int row = 0; row < snapshot.rowCount(); row++) {
+                out.putInt(snapshot.rowStart(row));
+            }
+            out.align();
+            for (int row = 0; row < snapshot.rowCount(); row++) {
+                out.putInt(snapshot.rowEnd(row));
+            }
+            out.align();
+            for (int row = 0; row < snapshot.rowCount(); row++) {
+                out.putDouble(snapshot.rowPrice(row));
+            }
+
+            for (int sku = 0; sku < snapshot.skuCount(); sku++) {
+                out.putInt(snapshot.firstSegment(sku));
+            }
+            out.putInt(snapshot.segmentCount());
+            out.align();
+            for (int segment = 0; segment < snapshot.segmentCount(); segment++) {
+                out.putInt(snapshot.segmentBreak(segment));
+            }
+            out.align();
+            for (int segment = 0; segment < snapshot.segmentCount(); segment++) {
+                out.putDouble(snapshot.segmentPrice(segment));
+            }
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(
+                temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot previously produced by {@link #write}. The header, the dictionary and the
+     * per-SKU offsets are checked, so a truncated or corrupt file fails with an {@link
+     * IOException} rather than a buffer or index error; the columns themselves are trusted.
+     */
+    static PricingSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Pricing snapshot " + path + " is truncated");
+            }
+            ByteBuffer header = map(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a pricing snapshot (or unsupported version): " + path);
+            }
+            int skuCount = header.getInt();
+            int rowCount = header.getInt();
+            int segmentCount = header.getInt();
+            int dictionaryBytes = header.getInt();
+
+            long position = HEADER_BYTES;
+            long expectedSize =
+                    align(position + dictionaryBytes)
+                            + align(4L * (skuCount + 1))
+                            + 2 * align(4L * rowCount)
+                            + 8L * rowCount
+                            + align(4L * (skuCount + 1))
+                            + align(4L * segmentCount)
+                            + 8L * segmentCount;
+            if (skuCount < 0
+                    || rowCount < 0
+                    || segmentCount < 0
+                    || dictionaryBytes < 0
+                    || expectedSize != fileSize) {
+                throw corrupt(path);
+            }
+
+            ByteBuffer dictionary = map(channel, position, dictionaryBytes);
+            SkuDictionary skuIds = new SkuDictionary(skuCount);
+            for (int sku = 0; sku < skuCount; sku++) {
+                int length = dictionary.remaining() < Integer.BYTES ? -1 : dictionary.getInt();
+                if (length < 0 || length > dictionary.remaining()) {
+                    throw corrupt(path);
+                }
+                byte[] name = new byte[length];
+                dictionary.get(name);
+                if (skuIds.intern(new String(name, StandardCharsets.UTF_8)) != sku) {
+                    throw new IOException("Pricing snapshot " + path + " repeats a SKU id");
+                }
+            }
+            position = align(position + dictionaryBytes);
+
+            IntBuffer rowOffsets = map(channel, position, 4L * (skuCount + 1)).asIntBuffer();
+            position += align(4L * (skuCount + 1));
+            IntBuffer rowStarts = map(channel, position, 4L * rowCount).asIntBuffer();
+            position += align(4L * rowCount);
+            IntBuffer rowEnds = map(channel, position, 4L * rowCount).asIntBuffer();
+            position += align(4L * rowCount);
+            DoubleBuffer rowPrices = map(channel, position, 8L * rowCount).asDoubleBuffer();
+            position += 8L * rowCount;
+            IntBuffer segmentOffsets = map(channel, position, 4L * (skuCount + 1)).asIntBuffer();
+            position += align(4L * (skuCount + 1));
+            IntBuffer segmentBreaks = map(channel, position, 4L * segmentCount).asIntBuffer();
+            position += align(4L * segmentCount);
+            DoubleBuffer segmentPrices =
+                    map(channel, position, 8L * segmentCount).asDoubleBuffer();
+            if (dictionary.hasRemaining()
+                    || !isOffsets(rowOffsets, rowCount)
+                    || !isOffsets(segmentOffsets, segmentCount)) {
+                throw corrupt(path);
+            }
+
+            // The mappings stay valid after the channel is closed
+            return new PricingSnapshot(
+                    skuIds,
+                    rowOffsets,
+                    rowStarts,
+                    rowEnds,
+                    rowPrices,
+                    segmentOffsets,
+                    segmentBreaks,
+                    segmentPrices,
+                    true);
+        }
+    }
+
+    /** Whether {@code offsets} rises from 0 to {@code count} without stepping back. */
+    private static boolean isOffsets(IntBuffer offsets, int count) {
+        int previous = 0;
+        for (int i = 0; i < offsets.limit(); i++) {
+            int offset = offsets.get(i);
+            if (offset < previous || offset > count) {
+                return false;
+            }
+            previous = offset;
+        }
+        return offsets.get(0) == 0 && previous == count;
+    }
+
+    private static IOException corrupt(Path path) {
+        return new IOException("Pricing snapshot " + path + " is corrupt or truncated");
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size)
+            throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Pricing snapshot section of " + size + " bytes is too large");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /** Buffered little-endian writer that tracks its position for section alignment. */
+    private static final class Writer {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer =
+                ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+            position += Integer.BYTES;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+            position += Double.BYTES;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            for (int offset = 0; offset < bytes.length; ) {
+                ensure(1);
+                int chunk = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+            position += bytes.length;
+        }
+
+        void align() throws IOException {
+            while ((position & 7) != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
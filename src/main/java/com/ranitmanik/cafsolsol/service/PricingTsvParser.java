@@ -0,0 +1,411 @@
+package com.ranitmanik.cafsolsol.service;
+
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming TSV parser for pricing feeds.
+ *
+ * <p>Bytes are scanned straight out of a reusable buffer: times are decoded into minute-of-day
+ * ints and prices into doubles without building intermediate Strings, and each SKU id is
+ * materialized only the first time it is seen. Rows are handed to a {@link PricingRowHandler} as
+ * soon as they are read, and anything that cannot be used is counted in a {@link
+ * PricingLoadReport} instead of being silently dropped.
+ *
+ * <p>A parser created for a {@link PricingDeltaHandler} also accepts deletions: a row whose price
+ * is {@code DELETE} removes that window, and {@code *} in both time columns removes the whole SKU.
+ */
+final class PricingTsvParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int COLUMNS = 4;
+    private static final byte[] DELETE = "DELETE".getBytes(StandardCharsets.US_ASCII);
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+        1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final PricingRowHandler handler;
+    private final PricingDeltaHandler deltas;
+    private final SkuInterner skuIds = new SkuInterner();
+    private final int[] fieldStarts = new int[COLUMNS];
+    private final int[] fieldEnds = new int[COLUMNS];
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private boolean hasHeader = true;
+    private long chunkNewlines;
+
+    PricingTsvParser(PricingRowHandler handler) {
+        this.handler = handler;
+        this.deltas = null;
+    }
+
+    /** Creates a parser for delta feeds, which may also contain deletions. */
+    PricingTsvParser(PricingDeltaHandler deltas) {
+        this.handler = deltas;
+        this.deltas = deltas;
+    }
+
+    /** Parses the whole stream, skipping the header line. The stream is not closed. */
+    PricingLoadReport parse(InputStream inputStream) throws IOException {
+        PricingLoadReport report = new PricingLoadReport();
+        long lineNumber = 0;
+        int length = 0;
+        boolean endOfStream = false;
+
+        while (!endOfStream || length > 0) {
+            int lineStart = 0;
+            int newline;
+            while ((newline = indexOf(buffer, (byte) '\n', lineStart, length)) >= 0) {
+                parseLine(++lineNumber, lineStart, newline, report);
+                lineStart = newline + 1;
+            }
+            if (endOfStream) {
+                // Last line without a trailing newline
+                parseLine(++lineNumber, lineStart, length, report);
+                break;
+            }
+
+            // Keep the partial line and refill behind it, growing only for very long lines
+            length -= lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, length);
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                endOfStream = true;
+            } else {
+                length += read;
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Parses the lines at {@code [from, to)} of an in-memory chunk of a feed. Line numbers in the
+     * report count from the start of the chunk, and only the first chunk of a feed has a header.
+     * The chunk must end right after a newline unless it is the end of the feed.
+     *
+     * @return the report; {@link PricingLoadReport#add} shifts it by the newlines before the chunk,
+     *     see {@link #chunkNewlines}
+     */
+    PricingLoadReport parseChunk(byte[] bytes, int from, int to, boolean firstChunk) {
+        PricingLoadReport report = new PricingLoadReport();
+        buffer = bytes;
+        hasHeader = firstChunk;
+        long lineNumber = 0;
+        int lineStart = from;
+        int newline;
+        while ((newline = indexOf(buffer, (byte) '\n', lineStart, to)) >= 0) {
+            parseLine(++lineNumber, lineStart, newline, report);
+            lineStart = newline + 1;
+        }
+        chunkNewlines = lineNumber;
+        if (lineStart < to) {
+            parseLine(++lineNumber, lineStart, to, report);
+        }
+        return report;
+    }
+
+    /** Newlines in the chunk last passed to {@link #parseChunk}. */
+    long chunkNewlines() {
+        return chunkNewlines;
+    }
+
+    private void parseLine(long lineNumber, int from, int to, PricingLoadReport report) {
+        if (lineNumber == 1 && hasHeader) {
+            return; // Skip header line
+        }
+        // Trailing whitespace, tabs and \r included, is not part of the last column
+        int end = trimEnd(from, to);
+        if (end == from) {
+            if (from < to && !(to - from == 1 && buffer[from] == '\r')) {
+                report.rowSkipped();
+            }
+            return;
+        }
+        to = end;
+
+        int columns = 0;
+        int fieldStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || buffer[i] == '\t') {
+                if (columns < COLUMNS) {
+                    fieldStarts[columns] = trimStart(fieldStart, i);
+                    fieldEnds[columns] = trimEnd(fieldStarts[columns], i);
+                }
+                columns++;
+                fieldStart = i + 1;
+            }
+        }
+        if (columns != COLUMNS) {
+            report.rowRejected(
+                    lineNumber, "expected " + COLUMNS + " columns but found " + columns);
+            return;
+        }
+        if (fieldStarts[0] == fieldEnds[0]) {
+            report.rowRejected(lineNumber, "empty SKU id");
+            return;
+        }
+        if (deltas != null && matches(fieldStarts[3], fieldEnds[3], DELETE)) {
+            parseDelete(lineNumber, report);
+            return;
+        }
+        int startMinute = parseMinuteOfDay(fieldStarts[1], fieldEnds[1]);
+        if (startMinute < 0) {
+            report.rowRejected(lineNumber, "invalid start time, expected HH:mm");
+            return;
+        }
+        int endMinute = parseMinuteOfDay(fieldStarts[2], fieldEnds[2]);
+        if (endMinute < 0) {
+            report.rowRejected(lineNumber, "invalid end time, expected HH:mm");
+            return;
+        }
+        double price = parsePrice(fieldStarts[3], fieldEnds[3]);
+        if (Double.isNaN(price)) {
+            report.rowRejected(lineNumber, "invalid price");
+            return;
+        }
+
+        String skuId = skuIds.intern(buffer, fieldStarts[0], fieldEnds[0]);
+        handler.onRow(skuId, startMinute, endMinute, price);
+        report.rowLoaded();
+    }
+
+    private void parseDelete(long lineNumber, PricingLoadReport report) {
+        int startMinute = -1;
+        int endMinute = -1;
+        boolean wholeSku =
+                isWildcard(fieldStarts[1], fieldEnds[1])
+                        && isWildcard(fieldStarts[2], fieldEnds[2]);
+        if (!wholeSku) {
+            startMinute = parseMinuteOfDay(fieldStarts[1], fieldEnds[1]);
+            if (startMinute < 0) {
+                report.rowRejected(lineNumber, "invalid start time, expected HH:mm or *");
+                return;
+            }
+            endMinute = parseMinuteOfDay(fieldStarts[2], fieldEnds[2]);
+            if (endMinute < 0) {
+                report.rowRejected(lineNumber, "invalid end time, expected HH:mm or *");
+                return;
+            }
+        }
+
+        String skuId = skuIds.intern(buffer, fieldStarts[0], fieldEnds[0]);
+        deltas.onDelete(skuId, startMinute, endMinute);
+        report.rowLoaded();
+    }
+
+    private boolean isWildcard(int from, int to) {
+        return to - from == 1 && buffer[from] == '*';
+    }
+
+    private boolean matches(int from, int to, byte[] expected) {
+        return Arrays.equals(buffer, from, to, expected, 0, expected.length);
+    }
+
+    /** Returns the minute of the day for {@code HH:mm}, or -1 if the field is not a valid time. */
+    private int parseMinuteOfDay(int from, int to) {
+        if (to - from != 5 || buffer[from + 2] != ':') {
+            return -1;
+        }
+        int hours = twoDigits(from);
+        int minutes = twoDigits(from + 3);
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+            return -1;
+        }
+        return hours * 60 + minutes;
+    }
+
+    private int twoDigits(int at) {
+        int high = buffer[at] - '0';
+        int low = buffer[at + 1] - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+
+    /**
+     * Parses a finite decimal price, {@code [+-]digits[.digits][e[+-]digits]}, returning {@code
+     * NaN} for anything else: Java literal suffixes such as {@code 10d}, hex, {@code NaN} and
+     * {@code Infinity} are not prices.
+     */
+    private double parsePrice(int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = -1;
+        boolean sawDigit = false;
+        for (; i < to; i++) {
+            byte b = buffer[i];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (significantDigits == 18) {
+                    return parsePriceSlow(from, to);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+                if (scale >= 0) {
+                    scale++;
+                }
+                sawDigit = true;
+            } else if (b == 'e' || b == 'E') {
+                return parsePriceSlow(from, to);
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!sawDigit) {
+            return Double.NaN;
+        }
+        scale = Math.max(scale, 0);
+        if (mantissa >= 1L << 53 || scale >= POWERS_OF_TEN.length) {
+            return parsePriceSlow(from, to);
+        }
+        // Both operands are exact doubles, so the division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /** Fallback for exponents and very long mantissas; rare enough to allocate. */
+    private double parsePriceSlow(int from, int to) {
+        if (!isDecimal(from, to)) {
+            return Double.NaN; // Double.parseDouble would also take suffixes, NaN and Infinity
+        }
+        try {
+            double value =
+                    Double.parseDouble(
+                            new String(buffer, from, to - from, StandardCharsets.US_ASCII));
+            return Double.isInfinite(value) ? Double.NaN : value;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /** Whether the field is {@code [+-]digits[.digits][e[+-]digits]}, with a digit before the e. */
+    private boolean isDecimal(int from, int to) {
+        int i = from;
+        if (i < to && (buffer[i] == '-' || buffer[i] == '+')) {
+            i++;
+        }
+        int digits = 0;
+        boolean point = false;
+        for (; i < to && buffer[i] != 'e' && buffer[i] != 'E'; i++) {
+            if (buffer[i] == '.' && !point) {
+                point = true;
+            } else if (buffer[i] >= '0' && buffer[i] <= '9') {
+                digits++;
+            } else {
+                return false;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i == to) {
+            return true;
+        }
+        i++; // The e
+        if (i < to && (buffer[i] == '-' || buffer[i] == '+')) {
+            i++;
+        }
+        if (i == to) {
+            return false;
+        }
+        for (; i < to; i++) {
+            if (buffer[i] < '0' || buffer[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Skips whitespace as {@link String#trim} defines it: any byte up to the space. */
+    private int trimStart(int from, int to) {
+        while (from < to && (buffer[from] & 0xff) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && (buffer[to - 1] & 0xff) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Maps SKU id bytes to a canonical String so repeated ids never allocate. */
+    private static final class SkuInterner {
+
+        private byte[][] keys = new byte[1024][];
+        private String[] values = new String[1024];
+        private int size;
+
+        String intern(byte[] bytes, int from, int to) {
+            int mask = keys.length - 1;
+            int slot = hash(bytes, from, to) & mask;
+            while (keys[slot] != null) {
+                if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, from, to)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] key = Arrays.copyOfRange(bytes, from, to);
+            String value = new String(key, StandardCharsets.UTF_8);
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return value;
+        }
+
+        private void resize() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = hash(oldKeys[i], 0, oldKeys[i].length) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(byte[] bytes, int from, int to) {
+            int h = 1;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + bytes[i];
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
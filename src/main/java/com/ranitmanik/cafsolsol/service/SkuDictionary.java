@@ -0,0 +1,272 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Interned SKU ids numbered by ordinal.
+ *
+ * <p>Ordinals index the pricing columns. Lookups probe an open-addressing {@code int[]} table
+ * instead of a {@code HashMap}, and ids are not kept as {@code String}s: an id of up to {@value
+ * #MAX_CODE_LENGTH} characters from {@code [A-Za-z0-9_-]}, which covers catalog ids such as
+ * {@code u00006541}, is packed into a single {@code long} code. Any other id is copied as UTF-16
+ * into an off-heap arena and represented by the bitwise complement of its offset there. The whole
+ * dictionary costs a {@code long} and two table slots per SKU on the heap.
+ *
+ * <p>{@link #ordinalOf(CharSequence)} reads the characters of the requested id once to encode or
+ * hash it and compares codes or arena characters, so a lookup allocates nothing and never calls
+ * {@link String#hashCode} or {@link String#equals}. {@link #get} rebuilds the {@code String}; it is
+ * meant for output, not for lookups.
+ */
+final class SkuDictionary {
+
+    /** Longest id that fits a code: 65^10 is below 2^63. */
+    static final int MAX_CODE_LENGTH = 10;
+
+    private static final int RADIX = 65;
+    private static final byte[] DIGITS = new byte[128]; // 0 marks a character without a digit
+    private static final char[] SYMBOLS = new char[RADIX];
+    private static final int RECORD_HEADER = 8; // Hash, then length in chars
+
+    static {
+        String alphabet = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+        for (int i = 0; i < alphabet.length(); i++) {
+            // Digits start at 1, so codes of ids with different lengths never collide
+            DIGITS[alphabet.charAt(i)] = (byte) (i + 1);
+            SYMBOLS[i + 1] = alphabet.charAt(i);
+        }
+    }
+
+    private long[] codes;
+    private int[] table; // ordinal + 1, 0 marks an empty slot
+    private int size;
+    private ByteBuffer arena; // Direct; records of ids that have no code
+    private int arenaSize;
+
+    SkuDictionary() {
+        this(16);
+    }
+
+    SkuDictionary(int expectedSize) {
+        codes = new long[Math.max(expectedSize, 1)];
+        table = new int[tableSizeFor(expectedSize)];
+    }
+
+    /** Returns the ordinal of the id, or -1 if it is not in the dictionary. */
+    int ordinalOf(CharSequence id) {
+        long code = encode(id);
+        int mask = table.length - 1;
+        if (code >= 0) {
+            for (int slot = hash(code) & mask; ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (codes[entry - 1] == code) {
+                    return entry - 1;
+                }
+            }
+        }
+        int hash = hash(id);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            long other = codes[entry - 1];
+            if (other < 0 && recordEquals((int) ~other, hash, id)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the ordinal of the id stored at {@code ordinal} of {@code other}, or -1 if it is not
+     * in this dictionary, without rebuilding the id as a {@code String}.
+     */
+    int ordinalOf(SkuDictionary other, int ordinal) {
+        long code = other.codes[ordinal];
+        int hash = code >= 0 ? hash(code) : other.arena.getInt((int) ~code);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            long candidate = codes[entry - 1];
+            if (code >= 0
+                    ? candidate == code
+                    : candidate < 0 && sameRecord((int) ~candidate, other, (int) ~code)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /** Returns the ordinal of the id, assigning the next one if it has not been seen yet. */
+    int intern(String id) {
+        int found = ordinalOf(id);
+        if (found >= 0) {
+            return found;
+        }
+        long code = encode(id);
+        int hash;
+        if (code >= 0) {
+            hash = hash(code);
+        } else {
+            hash = hash(id);
+            code = ~append(hash, id);
+        }
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        codes[size] = code;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = ++size;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return size - 1;
+    }
+
+    /** Rebuilds the id at the ordinal; this allocates, so lookups should not depend on it. */
+    String get(int ordinal) {
+        long code = codes[ordinal];
+        if (code < 0) {
+            int offset = (int) ~code;
+            char[] chars = new char[arena.getInt(offset + 4)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = arena.getChar(offset + RECORD_HEADER + 2 * i);
+            }
+            return new String(chars);
+        }
+        char[] chars = new char[MAX_CODE_LENGTH];
+        int length = 0;
+        for (; code != 0; code /= RADIX) {
+            chars[length++] = SYMBOLS[(int) (code % RADIX)];
+        }
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            char tmp = chars[i];
+            chars[i] = chars[j];
+            chars[j] = tmp;
+        }
+        return new String(chars, 0, length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Heap and off-heap bytes held by the dictionary. */
+    long estimatedBytes() {
+        return codes.length * 8L + table.length * 4L + (arena == null ? 0 : arena.capacity());
+    }
+
+    /** Packs the id into a non-negative code, or returns -1 if it has no code. */
+    static long encode(CharSequence id) {
+        int length = id.length();
+        if (length == 0 || length > MAX_CODE_LENGTH) {
+            return -1;
+        }
+        long code = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            int digit = c < DIGITS.length ? DIGITS[c] : 0;
+            if (digit == 0) {
+                return -1;
+            }
+            code = code * RADIX + digit;
+        }
+        return code;
+    }
+
+    /** Copies an id into the arena, returning the offset of its record. */
+    private int append(int hash, String id) {
+        int bytes = RECORD_HEADER + 2 * id.length();
+        if (arena == null || arenaSize + bytes > arena.capacity()) {
+            long capacity =
+                    Math.max(arena == null ? 4096L : arena.capacity() * 2L, arenaSize + bytes);
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IllegalStateException("SKU id arena is full");
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity);
+            if (arena != null) {
+                grown.put(0, arena, 0, arenaSize);
+            }
+            arena = grown;
+        }
+        int offset = arenaSize;
+        arena.putInt(offset, hash);
+        arena.putInt(offset + 4, id.length());
+        for (int i = 0; i < id.length(); i++) {
+            arena.putChar(offset + RECORD_HEADER + 2 * i, id.charAt(i));
+        }
+        arenaSize += bytes;
+        return offset;
+    }
+
+    private boolean recordEquals(int offset, int hash, CharSequence id) {
+        if (arena.getInt(offset) != hash || arena.getInt(offset + 4) != id.length()) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (arena.getChar(offset + RECORD_HEADER + 2 * i) != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameRecord(int offset, SkuDictionary other, int otherOffset) {
+        int length = arena.getInt(offset + 4);
+        if (arena.getInt(offset) != other.arena.getInt(otherOffset)
+                || length != other.arena.getInt(otherOffset + 4)) {
+            return false;
+        }
+        for (int i = RECORD_HEADER; i < RECORD_HEADER + 2 * length; i += 2) {
+            if (arena.getChar(offset + i) != other.arena.getChar(otherOffset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            long code = codes[ordinal];
+            int hash = code >= 0 ? hash(code) : arena.getInt((int) ~code);
+            int slot = hash & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = ordinal + 1;
+        }
+    }
+
+    private static int hash(long code) {
+        long h = code * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32);
+    }
+
+    private static int hash(CharSequence id) {
+        int h = 0;
+        for (int i = 0; i < id.length(); i++) {
+            h = 31 * h + id.charAt(i);
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
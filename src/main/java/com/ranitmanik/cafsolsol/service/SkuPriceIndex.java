@@ -0,0 +1,239 @@
+package com.ranitmanik.cafsolsol.service;
+
+import java.nio.IntBuffer;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Resolves the price windows of each SKU into its index and appends it to flat segment columns.
+ *
+ * <p>The overlapping windows of a SKU are flattened at load time into sorted, non-overlapping
+ * segments. A segment starts at {@code breaks[i]}, runs until the next break of the same SKU (or
+ * the end of the day), and carries the price of the last row in the file whose window covers it,
+ * or {@code NaN} when no row does. A lookup is a single binary search over the SKU's breaks.
+ *
+ * <p>A window whose end is before its start, such as 22:00-02:00, wraps past midnight: it covers
+ * the end of the day from its start and the beginning of the day until its end. It is resolved as
+ * those two intervals, both with the row's priority, so wrapping rows cost nothing at lookup time.
+ *
+ * <p>The scratch space used while resolving is kept between SKUs, so building the index of a whole
+ * catalog allocates little beyond the output columns themselves.
+ */
+final class SkuPriceIndex {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    private int[] breaks = new int[16];
+    private double[] prices = new double[16];
+    private int size;
+
+    private int[] points = new int[32];
+    private long[] byStart = new long[16];
+    private int[] intervalEnds = new int[16];
+    private int[] intervalRows = new int[16];
+    private long[] heap = new long[16];
+
+    /**
+     * Resolves the rows at {@code [from, to)} of the given columns, which must all belong to one
+     * SKU and be in file order, and appends the resulting segments. Rows with an empty window
+     * ({@code start == end}) never match and are ignored.
+     *
+     * @return the number of segments appended
+     */
+    int resolve(int[] starts, int[] ends, double[] rowPrices, int from, int to) {
+        int count = to - from;
+        if (byStart.length < count * 2) {
+            points = new int[count * 4];
+            byStart = new long[count * 2];
+            intervalEnds = new int[count * 2];
+            intervalRows = new int[count * 2];
+            heap = new long[count * 2];
+        }
+
+        // Intervals ordered by start (packed as start:interval so a primitive sort is enough); a
+        // wrapping row becomes [start, end of day) and [0, end)
+        int intervals = 0;
+        int pointCount = 0;
+        for (int row = from; row < to; row++) {
+            int start = starts[row];
+            int end = ends[row];
+            if (start == end) {
+                continue;
+            }
+            if (start < end) {
+                points[pointCount++] = start;
+                points[pointCount++] = end;
+                intervalEnds[intervals] = end;
+                intervalRows[intervals] = row;
+                byStart[intervals] = ((long) start << 32) | intervals;
+                intervals++;
+                continue;
+            }
+            points[pointCount++] = start;
+            intervalEnds[intervals] = MINUTES_PER_DAY;
+            intervalRows[intervals] = row;
+            byStart[intervals] = ((long) start << 32) | intervals;
+            intervals++;
+            if (end > 0) {
+                points[pointCount++] = 0;
+                points[pointCount++] = end;
+                intervalEnds[intervals] = end;
+                intervalRows[intervals] = row;
+                byStart[intervals] = intervals;
+                intervals++;
+            }
+        }
+        if (pointCount == 0) {
+            return 0;
+        }
+        Arrays.sort(points, 0, pointCount);
+        int unique = 0;
+        for (int i = 0; i < pointCount; i++) {
+            if (unique == 0 || points[unique - 1] != points[i]) {
+                points[unique++] = points[i];
+            }
+        }
+
+        Arrays.sort(byStart, 0, intervals);
+
+        // The heap holds the open intervals packed as row:interval, so the one from the last row
+        // in the file is on top
+        int heapSize = 0;
+        int next = 0;
+
+        int first = size;
+        for (int p = 0; p < unique; p++) {
+            int point = points[p];
+            while (next < intervals && (int) (byStart[next] >> 32) <= point) {
+                int interval = (int) byStart[next++];
+                heapSize = push(heap, heapSize, ((long) intervalRows[interval] << 32) | interval);
+            }
+            while (heapSize > 0 && intervalEnds[(int) heap[0]] <= point) {
+                heapSize = pop(heap, heapSize);
+            }
+            double price = heapSize > 0 ? rowPrices[(int) (heap[0] >>> 32)] : Double.NaN;
+            if (size == first
+                    || Double.doubleToLongBits(prices[size - 1])
+                            != Double.doubleToLongBits(price)) {
+                append(point, price);
+            }
+        }
+        return size - first;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] breaks() {
+        return Arrays.copyOf(breaks, size);
+    }
+
+    double[] prices() {
+        return Arrays.copyOf(prices, size);
+    }
+
+    /** Copies the segments into larger columns, starting at {@code offset}. */
+    void copyTo(int[] breakColumn, double[] priceColumn, int offset) {
+        System.arraycopy(breaks, 0, breakColumn, offset, size);
+        System.arraycopy(prices, 0, priceColumn, offset, size);
+    }
+
+    /**
+     * Finds the segment covering {@code minuteOfDay} among the breaks stored at {@code [from, to)}
+     * of a flattened column, returning its absolute position or -1 if the minute precedes them.
+     */
+    static int segmentAt(IntBuffer breaks, int from, int to, int minuteOfDay) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (breaks.get(mid) <= minuteOfDay) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= from ? high : -1;
+    }
+
+    static int toMinuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Parses {@code HH:mm} by hand, returning the minute of the day or -1 if the text is not a
+     * valid time. Unlike {@link LocalTime#parse} it neither allocates nor throws.
+     */
+    static int parseMinuteOfDay(CharSequence time) {
+        if (time.length() != 5 || time.charAt(2) != ':') {
+            return -1;
+        }
+        int hours = twoDigits(time, 0);
+        int minutes = twoDigits(time, 3);
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+            return -1;
+        }
+        return hours * 60 + minutes;
+    }
+
+    private static int twoDigits(CharSequence text, int at) {
+        int high = text.charAt(at) - '0';
+        int low = text.charAt(at + 1) - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+
+    private void append(int point, double price) {
+        if (size == breaks.length) {
+            breaks = Arrays.copyOf(breaks, size * 2);
+            prices = Arrays.copyOf(prices, size * 2);
+        }
+        breaks[size] = point;
+        prices[size] = price;
+        size++;
+    }
+
+    private static int push(long[] heap, int size, long entry) {
+        int i = size;
+        heap[i] = entry;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] >= heap[i]) {
+                break;
+            }
+            swap(heap, parent, i);
+            i = parent;
+        }
+        return size + 1;
+    }
+
+    private static int pop(long[] heap, int size) {
+        int last = size - 1;
+        heap[0] = heap[last];
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            int largest = i;
+            if (left < last && heap[left] > heap[largest]) {
+                largest = left;
+            }
+            if (left + 1 < last && heap[left + 1] > heap[largest]) {
+                largest = left + 1;
+            }
+            if (largest == i) {
+                return last;
+            }
+            swap(heap, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(long[] heap, int a, int b) {
+        long tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ranitmanik.cafsolsol.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+@DisplayName("Concurrency Limit Filter Tests")
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    @DisplayName("Should reject API requests with 503 when no permit is free")
+    void testRejectsWhenSaturated() throws ServletException, IOException {
+        // Arrange
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 10);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        // Act: the second request arrives while the first one still holds the only permit
+        filter.doFilter(
+                new MockHttpServletRequest("GET", "/api/pricing/price"),
+                new MockHttpServletResponse(),
+                (request, response) ->
+                        filter.doFilter(
+                                new MockHttpServletRequest("GET", "/api/pricing/price"),
+                                rejected,
+                                (innerRequest, innerResponse) -> fail("should not be reached")));
+
+        // Assert
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Should hold an async request's permit until its body is complete")
+    void testAsyncRequestHoldsPermit() throws ServletException, IOException {
+        // Arrange
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 10);
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/pricing/export");
+        export.setAsyncSupported(true);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        // Act: the export's dispatch returns while its body is still being streamed
+        filter.doFilter(
+                export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        filter.doFilter(
+                new MockHttpServletRequest("GET", "/api/pricing/price"),
+                rejected,
+                (request, response) -> fail("should not be reached"));
+        int whileStreaming = filter.availablePermits();
+        export.getAsyncContext().complete();
+
+        // Assert
+        assertEquals(503, rejected.getStatus());
+        assertEquals(0, whileStreaming);
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Should not limit requests outside the API")
+    void testIgnoresNonApiPaths() throws ServletException, IOException {
+        // Arrange
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 10);
+        AtomicBoolean reached = new AtomicBoolean();
+
+        // Act
+        filter.doFilter(
+                new MockHttpServletRequest("GET", "/api/pricing/price"),
+                new MockHttpServletResponse(),
+                (request, response) ->
+                        filter.doFilter(
+                                new MockHttpServletRequest("GET", "/actuator/health"),
+                                new MockHttpServletResponse(),
+                                (innerRequest, innerResponse) -> reached.set(true)));
+
+        // Assert
+        assertTrue(reached.get());
+    }
+
+    @Test
+    @DisplayName("Should pass every request through when the limit is disabled")
+    void testDisabled() throws ServletException, IOException {
+        // Arrange
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(0, 10);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicBoolean reached = new AtomicBoolean();
+
+        // Act
+        filter.doFilter(
+                new MockHttpServletRequest("GET", "/api/pricing/price"),
+                response,
+                (request, res) -> reached.set(true));
+
+        // Assert
+        assertTrue(reached.get());
+        assertEquals(200, response.getStatus());
+        assertEquals(-1, filter.availablePermits());
+    }
+}
@@ -1,14 +1,25 @@
 package com.ranitmanik.cafsolsol.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import com.ranitmanik.cafsolsol.model.PriceQuery;
 import com.ranitmanik.cafsolsol.service.PricingService;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 @DisplayName("Pricing Controller Tests")
 class PricingControllerTest {
@@ -109,4 +120,128 @@ class PricingControllerTest {
         assertNotNull(price);
         assertEquals(87.0, price);
     }
+
+    @Test
+    @DisplayName("Should write fast-path quotes and leave anything else to /price")
+    void testPriceQuoteWriter() throws IOException {
+        // Arrange: one pooled buffer, so the second request reuses the first one's
+        PriceQuoteWriter writer = new PriceQuoteWriter(1);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        MockHttpServletResponse missing = new MockHttpServletResponse();
+
+        // Act
+        boolean written = writer.write(pricingService, "u00006541", "10:05", first);
+        writer.write(pricingService, "t12182868", null, second);
+        boolean missingWritten = writer.write(pricingService, "nonExistent", "10:05", missing);
+        boolean invalidWritten = writer.write(pricingService, "u00006541", "10:5", missing);
+
+        // Assert
+        assertTrue(written);
+        assertEquals("application/json", first.getContentType());
+        assertEquals(
+                "{\"skuId\":\"u00006541\",\"time\":\"10:05\",\"price\":99.0}",
+                first.getContentAsString());
+        assertEquals(first.getContentAsString().length(), first.getContentLength());
+        assertEquals("{\"skuId\":\"t12182868\",\"price\":87.0}", second.getContentAsString());
+        assertFalse(missingWritten);
+        assertFalse(invalidWritten);
+        assertEquals("", missing.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Should accept 24:00 only as the end of a range")
+    void testParseRangeBounds() {
+        // Act & Assert
+        assertEquals(LocalTime.of(10, 30), PricingController.parseTime("10:30"));
+        assertNull(PricingController.parseTime(null));
+        assertNull(PricingController.parseEndTime("24:00"));
+        assertEquals(LocalTime.of(10, 30), PricingController.parseEndTime("10:30"));
+        assertThrows(DateTimeParseException.class, () -> PricingController.parseTime("24:00"));
+    }
+
+    @Test
+    @DisplayName("Should write fast-path quotes without allocating once warmed up")
+    void testPriceQuoteWriterAllocation() throws IOException {
+        // Arrange
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        PriceQuoteWriter writer = new PriceQuoteWriter(4);
+        DiscardingResponse response = new DiscardingResponse();
+        String[] skuIds = {"u00006541", "t12182868", "i00006111", "nonExistent"};
+        String[] times = {"10:05", "14:30", null, "10:03"};
+        int calls = 100_000;
+        for (int i = 0; i < 5 * calls; i++) { // Let the JIT compile the path first
+            writer.write(pricingService, skuIds[i & 3], times[i & 3], response);
+        }
+
+        // Act
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < calls; i++) {
+            writer.write(pricingService, skuIds[i & 3], times[i & 3], response);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // Assert: a few bytes per call leave room for the measurement itself
+        assertTrue(
+                allocated < 8L * calls,
+                "/price/fast allocated " + (double) allocated / calls + " bytes per call");
+    }
+
+    @Test
+    @DisplayName("Should reject batch items that are null or have no skuId")
+    void testGetPricesRejectsMissingSkuIds() {
+        // Arrange
+        PricingController controller = new PricingController();
+        controller.setPricingService(pricingService);
+        List<PriceQuery> nullItem = new ArrayList<>();
+        nullItem.add(new PriceQuery("u00006541", "10:05"));
+        nullItem.add(null);
+
+        // Act
+        ResponseEntity<?> nullResponse = controller.getPrices(nullItem);
+        ResponseEntity<?> missingResponse =
+                controller.getPrices(List.of(new PriceQuery(null, "10:00")));
+        ResponseEntity<?> validResponse =
+                controller.getPrices(List.of(new PriceQuery("u00006541", "10:05")));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, nullResponse.getStatusCode());
+        assertEquals("Query 1 has no skuId", nullResponse.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, missingResponse.getStatusCode());
+        assertEquals(HttpStatus.OK, validResponse.getStatusCode());
+    }
+
+    /** A response that discards its body, so only the handler's own allocation is measured. */
+    private static final class DiscardingResponse extends MockHttpServletResponse {
+
+        private final ServletOutputStream out =
+                new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {}
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {}
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {}
+                };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public void setContentType(String contentType) {}
+
+        @Override
+        public void setContentLength(int contentLength) {}
+    }
 }
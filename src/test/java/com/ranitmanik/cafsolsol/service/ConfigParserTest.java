@@ -2,13 +2,24 @@ package com.ranitmanik.cafsolsol.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.ranitmanik.cafsolsol.model.ConfigLoadReport;
 import com.ranitmanik.cafsolsol.model.ConfigSection;
+import com.ranitmanik.cafsolsol.model.PreRenderedJson;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -107,6 +118,32 @@ class ConfigParserTest {
         assertEquals("test_os_topic_2", topics.get(1));
     }
 
+    @Test
+    @DisplayName("Should publish sections that callers cannot modify")
+    void testPublishedSectionsAreImmutable() throws IOException {
+        // Arrange
+        writeConfigToFile(
+                "Order Service\n"
+                        + "broker = https://orbroker.in\n"
+                        + "topic = test_os_topic_1, test_os_topic_2");
+        configParser.parseConfigFile(testConfigFile.getAbsolutePath());
+
+        // Act
+        ConfigSection section = configParser.getConfigSection("Order Service");
+
+        // Assert
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> section.getProperties().put("broker", "https://elsewhere.in"));
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> section.getArrayProperties().get("topic").add("test_os_topic_3"));
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> configParser.getAllSections().remove("Order Service"));
+        assertEquals("https://orbroker.in", section.getString("broker"));
+    }
+
     @Test
     @DisplayName("Should return null for non-existent section")
     void testGetNonExistentSection() throws IOException {
@@ -169,6 +206,345 @@ class ConfigParserTest {
         assertEquals(2, topics.size());
     }
 
+    @Test
+    @DisplayName("Should record parse timings and the section count")
+    void testMetrics() throws IOException {
+        // Arrange
+        MeterRegistry registry = new SimpleMeterRegistry();
+        configParser.setMeterRegistry(registry);
+        writeConfigToFile("Gateway\n" + "endpoint = https://xyz.in\n" + "\n" + "CXO\n" + "a = b");
+
+        // Act
+        configParser.parseConfigFile(testConfigFile.getAbsolutePath());
+
+        // Assert
+        assertEquals(1, registry.get("config.parse").timer().count());
+        assertEquals(2.0, registry.get("config.sections").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should publish a new version when the watched file changes")
+    void testWatchReloadsOnChange() throws IOException, InterruptedException {
+        // Arrange
+        Path file = Files.createTempDirectory("config-watch").resolve("config.txt");
+        Files.writeString(file, "Gateway\n" + "endpoint = https://xyz.in");
+        configParser.setWatchEnabled(true);
+        configParser.setWatchDebounceMs(50);
+        configParser.parseConfigFile(file.toString());
+        long version = configParser.getConfigVersion();
+
+        try {
+            // Act
+            Files.writeString(
+                    file, "Gateway\n" + "endpoint = https://abc.in\n" + "\n" + "CXO\n" + "a = b");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!configParser.sectionExists("CXO") && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+
+            // Assert
+            assertTrue(configParser.sectionExists("CXO"));
+            assertTrue(configParser.getConfigVersion() > version);
+            assertEquals(
+                    "https://abc.in",
+                    configParser.getConfigSection("Gateway").getProperties().get("endpoint"));
+        } finally {
+            configParser.stopWatching();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the previous configuration when a parse fails")
+    void testFailedParseKeepsPreviousConfig() throws IOException {
+        // Arrange
+        writeConfigToFile("Gateway\n" + "endpoint = https://xyz.in");
+        configParser.parseConfigFile(testConfigFile.getAbsolutePath());
+
+        // Act & Assert
+        assertThrows(
+                IOException.class,
+                () -> configParser.parseConfigFile(testConfigFile.getAbsolutePath() + ".missing"));
+        assertTrue(configParser.sectionExists("Gateway"));
+        assertEquals(1, configParser.getConfigVersion());
+    }
+
+    @Test
+    @DisplayName("Should pre-render sections as JSON with content-based ETags")
+    void testPreRenderedJson() throws IOException {
+        // Arrange
+        writeConfigToFile("Gateway\n" + "endpoint = https://xyz.in\n" + "\n" + "CXO\n" + "a = b");
+        configParser.parseConfigFile(testConfigFile.getAbsolutePath());
+        PreRenderedJson gateway = configParser.getSectionJson("Gateway");
+        PreRenderedJson cxo = configParser.getSectionJson("CXO");
+
+        // Act: reload with the Gateway section unchanged
+        writeConfigToFile("Gateway\n" + "endpoint = https://xyz.in\n" + "\n" + "CXO\n" + "a = c");
+        configParser.parseConfigFile(testConfigFile.getAbsolutePath());
+
+        // Assert
+        assertEquals("{\"endpoint\":\"https://xyz.in\"}", gateway.toString());
+        assertEquals(gateway.getETag(), configParser.getSectionJson("Gateway").getETag());
+        assertNotEquals(cxo.getETag(), configParser.getSectionJson("CXO").getETag());
+        assertNull(configParser.getSectionJson("NonExistent"));
+        assertTrue(configParser.getAllSectionsJson().toString().contains("\"CXO\":{\"a\":\"c\"}"));
+    }
+
+    @Test
+    @DisplayName("Should match If-None-Match values against the ETag")
+    void testETagMatching() {
+        // Arrange
+        PreRenderedJson json = new PreRenderedJson("{}".getBytes());
+        String etag = json.getETag();
+
+        // Act & Assert
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertTrue(json.matches(etag));
+        assertTrue(json.matches("\"other\", W/" + etag));
+        assertTrue(json.matches("*"));
+        assertFalse(json.matches("\"other\""));
+        assertFalse(json.matches(null));
+    }
+
+    @Test
+    @DisplayName("Should watch directories created after watching started")
+    void testWatchPicksUpNewDirectories() throws IOException, InterruptedException {
+        // Arrange
+        Path directory = Files.createTempDirectory("config-watch-dir");
+        Files.writeString(
+                directory.resolve("gateway.txt"), "Gateway\n" + "endpoint = https://xyz.in");
+        configParser.setWatchEnabled(true);
+        configParser.setWatchDebounceMs(50);
+        configParser.parseConfigPaths(List.of(directory));
+
+        try {
+            // Act: create a directory, let the watcher register it, then add a file to it
+            Path team = Files.createDirectories(directory.resolve("team"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (configParser.getConfigVersion() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            Files.writeString(team.resolve("billing.txt"), "Database\n" + "hosts = db1, db2");
+            while (!configParser.sectionExists("team.billing/Database")
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+
+            // Assert
+            assertTrue(configParser.sectionExists("team.billing/Database"));
+            assertTrue(configParser.sectionExists("gateway/Gateway"));
+        } finally {
+            configParser.stopWatching();
+        }
+    }
+
+    @Test
+    @DisplayName("Should load a directory of files into namespaced sections")
+    void testParseConfigDirectory() throws IOException {
+        // Arrange
+        Path directory = Files.createTempDirectory("config-dir");
+        Files.createDirectories(directory.resolve("team"));
+        Files.writeString(
+                directory.resolve("gateway.txt"), "Gateway\n" + "endpoint = https://xyz.in");
+        Files.writeString(
+                directory.resolve("team/billing.txt"), "Database\n" + "hosts = db1, db2");
+        Files.writeString(directory.resolve("notes.md"), "Ignored\n");
+        Path extra = Files.createTempFile("orders", ".txt");
+        Files.writeString(extra, "Broker\n" + "url = https://orbroker.in");
+
+        // Act
+        ConfigLoadReport report = configParser.parseConfigPaths(List.of(directory, extra));
+
+        // Assert
+        assertEquals(3, report.getFileCount());
+        assertEquals(0, report.getFailedCount());
+        assertEquals(3, report.getSectionCount());
+        assertEquals(1, report.getVersion());
+        assertEquals(
+                "https://xyz.in",
+                configParser.getConfigSection("gateway/Gateway").getProperties().get("endpoint"));
+        assertEquals(
+                List.of("db1", "db2"),
+                configParser
+                        .getConfigSection("team.billing/Database")
+                        .getArrayProperties()
+                        .get("hosts"));
+        String orders = extra.getFileName().toString().replace(".txt", "");
+        assertTrue(configParser.sectionExists(orders + "/Broker"));
+        assertFalse(configParser.sectionExists("Gateway"));
+        assertTrue(
+                configParser
+                        .getAllSectionsJson()
+                        .toString()
+                        .contains("\"team.billing/Database\":{\"hosts\":[\"db1\",\"db2\"]}"));
+    }
+
+    @Test
+    @DisplayName("Should re-parse a same-size edit that keeps the modification time")
+    void testParseConfigDirectoryDetectsSameSizeEdit() throws IOException {
+        // Arrange
+        Path directory = Files.createTempDirectory("config-dir");
+        Path orders = directory.resolve("orders.txt");
+        Files.writeString(orders, "Broker\n" + "url = https://orbroker1.in");
+        FileTime modified = Files.getLastModifiedTime(orders);
+        configParser.parseConfigPaths(List.of(directory));
+
+        // Act
+        Files.writeString(orders, "Broker\n" + "url = https://orbroker2.in");
+        Files.setLastModifiedTime(orders, modified);
+        ConfigLoadReport report = configParser.parseConfigPaths(List.of(directory));
+
+        // Assert
+        assertFalse(report.getFiles().get(0).isCached());
+        assertEquals(
+                "https://orbroker2.in",
+                configParser.getConfigSection("orders/Broker").getProperties().get("url"));
+    }
+
+    @Test
+    @DisplayName("Should not reuse a file's sections under a different namespace")
+    void testParseConfigPathsReparsesUnderNewNamespace() throws IOException {
+        // Arrange
+        Path directory = Files.createTempDirectory("config-dir");
+        Path team = Files.createDirectories(directory.resolve("team"));
+        Files.writeString(team.resolve("billing.txt"), "Database\n" + "host = db1");
+        configParser.parseConfigPaths(List.of(team));
+
+        // Act
+        ConfigLoadReport report = configParser.parseConfigPaths(List.of(directory));
+
+        // Assert
+        assertFalse(report.getFiles().get(0).isCached());
+        assertEquals(
+                "db1",
+                configParser.getConfigSection("team.billing/Database").getProperties().get("host"));
+        assertNull(configParser.getConfigSection("billing/Database"));
+    }
+
+    @Test
+    @DisplayName("Should reuse unchanged files when a directory load is re-run")
+    void testParseConfigDirectoryReusesUnchangedFiles() throws IOException {
+        // Arrange
+        Path directory = Files.createTempDirectory("config-dir");
+        Path gateway = directory.resolve("gateway.txt");
+        Path orders = directory.resolve("orders.txt");
+        Files.writeString(gateway, "Gateway\n" + "endpoint = https://xyz.in");
+        Files.writeString(orders, "Broker\n" + "url = https://orbroker.in");
+        configParser.parseConfigPaths(List.of(directory));
+        PreRenderedJson gatewayJson = configParser.getSectionJson("gateway/Gateway");
+
+        // Act
+        Files.writeString(orders, "Broker\n" + "url = https://orbroker2.in");
+        Files.setLastModifiedTime(
+                orders,
+                FileTime.fromMillis(Files.getLastModifiedTime(orders).toMillis() + 1000));
+        ConfigLoadReport report = configParser.parseConfigPaths(List.of(directory));
+
+        // Assert
+        Map<String, Boolean> cached = new HashMap<>();
+        report.getFiles().forEach(file -> cached.put(file.getNamespace(), file.isCached()));
+        assertEquals(Map.of("gateway", true, "orders", false), cached);
+        assertEquals(2, report.getVersion());
+        assertSame(gatewayJson, configParser.getSectionJson("gateway/Gateway"));
+        assertEquals(
+                "https://orbroker2.in",
+                configParser.getConfigSection("orders/Broker").getProperties().get("url"));
+    }
+
+    @Test
+    @DisplayName("Should report files that fail to load without dropping the others")
+    void testParseConfigPathsReportsErrors() throws IOException {
+        // Arrange
+        Path directory = Files.createTempDirectory("config-dir");
+        Files.writeString(
+                directory.resolve("gateway.txt"), "Gateway\n" + "endpoint = https://xyz.in");
+        Path missing = directory.resolve("missing.conf");
+        Path duplicate = Files.createTempDirectory("config-dup").resolve("gateway.txt");
+        Files.writeString(duplicate, "Other\n" + "a = b");
+
+        // Act
+        ConfigLoadReport report =
+                configParser.parseConfigPaths(List.of(directory, missing, duplicate));
+
+        // Assert
+        assertEquals(3, report.getFileCount());
+        assertEquals(2, report.getFailedCount());
+        assertTrue(configParser.sectionExists("gateway/Gateway"));
+        assertFalse(configParser.sectionExists("gateway/Other"));
+        for (ConfigLoadReport.FileReport file : report.getFiles()) {
+            if (file.getPath().equals(missing.toString())) {
+                assertTrue(file.getError().contains("NoSuchFileException"));
+            } else if (file.getPath().equals(duplicate.toString())) {
+                assertTrue(file.getError().contains("already used"));
+            } else {
+                assertNull(file.getError());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should convert values to typed accessors at parse time")
+    void testTypedValues() throws IOException {
+        // Arrange
+        writeConfigToFile(
+                "Service\n"
+                        + "port = 8080\n"
+                        + "max bytes = 10000000000\n"
+                        + "enabled = TRUE\n"
+                        + "timeout = 30s\n"
+                        + "retry = PT0.5S\n"
+                        + "endpoint = https://xyz.in/api\n"
+                        + "download loc = /home/user/temp\n"
+                        + "topic = a, b");
+
+        // Act
+        configParser.parseConfigFile(testConfigFile.getAbsolutePath());
+        ConfigSection section = configParser.getConfigSection("Service");
+
+        // Assert
+        assertEquals(8080, section.getInt("port"));
+        assertEquals(8080L, section.getLong("port"));
+        assertEquals(10_000_000_000L, section.getLong("max bytes"));
+        assertThrows(IllegalArgumentException.class, () -> section.getInt("max bytes"));
+        assertEquals(true, section.getBoolean("enabled"));
+        assertEquals(Duration.ofSeconds(30), section.getDuration("timeout"));
+        assertEquals(Duration.ofMillis(500), section.getDuration("retry"));
+        assertEquals(URI.create("https://xyz.in/api"), section.getUri("endpoint"));
+        assertEquals("/home/user/temp", section.getString("download loc"));
+        assertThrows(IllegalArgumentException.class, () -> section.getUri("download loc"));
+        assertEquals(List.of("a", "b"), section.getList("topic"));
+        assertEquals(List.of("8080"), section.getList("port"));
+        assertNull(section.getInt("missing"));
+        assertTrue(configParser.getConversionErrors().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should report values that cannot be converted when parsing")
+    void testConversionErrorsReported() throws IOException {
+        // Arrange
+        Path directory = Files.createTempDirectory("config-dir");
+        Files.writeString(
+                directory.resolve("cxo.txt"),
+                "CXO\n"
+                        + "redirect url = \n"
+                        + "broker = http://cxo broker.in\n"
+                        + "count = 99999999999999999999\n"
+                        + "topic = a, , b");
+
+        // Act
+        ConfigLoadReport report = configParser.parseConfigPaths(List.of(directory));
+
+        // Assert
+        List<String> warnings = report.getFiles().get(0).getWarnings();
+        assertEquals(4, warnings.size());
+        assertTrue(warnings.contains("cxo/CXO: redirect url: empty value"));
+        assertTrue(warnings.contains("cxo/CXO: topic: empty list element"));
+        assertTrue(warnings.stream().anyMatch(w -> w.startsWith("cxo/CXO: broker: invalid URI")));
+        assertEquals(warnings, configParser.getConversionErrors());
+        ConfigSection section = configParser.getConfigSection("cxo/CXO");
+        assertEquals("http://cxo broker.in", section.getString("broker"));
+        assertThrows(IllegalArgumentException.class, () -> section.getUri("broker"));
+    }
+
     private void writeConfigToFile(String content) throws IOException {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(testConfigFile))) {
             writer.write(content);
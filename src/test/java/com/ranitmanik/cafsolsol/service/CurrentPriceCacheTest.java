@@ -0,0 +1,126 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Current Price Cache Tests")
+class CurrentPriceCacheTest {
+
+    private PricingService pricingService;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clock = new MutableClock(LocalDateTime.of(2026, 1, 1, 10, 3));
+        pricingService = new PricingService();
+        pricingService.setClock(clock);
+        pricingService.setCurrentPriceCacheEnabled(true);
+
+        String tsvData =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t101\n"
+                        + "b98989000\t00:30\t07:00\t9128\n"
+                        + "u00006541\t10:05\t10:10\t99";
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvData.getBytes()));
+    }
+
+    @Test
+    @DisplayName("Should return the price in effect now instead of the first row")
+    void testCurrentPriceAfterLoad() {
+        assertEquals(101.0, pricingService.getPriceForSku("u00006541"));
+        assertNull(pricingService.getPriceForSku("b98989000"));
+    }
+
+    @Test
+    @DisplayName("Should follow window boundaries as the minute tick advances")
+    void testAdvanceAcrossBoundaries() {
+        // Act & Assert
+        clock.set(LocalDateTime.of(2026, 1, 1, 10, 5));
+        pricingService.refreshCurrentPrices();
+        assertEquals(99.0, pricingService.getPriceForSku("u00006541"));
+
+        clock.set(LocalDateTime.of(2026, 1, 1, 10, 12));
+        pricingService.refreshCurrentPrices();
+        assertEquals(101.0, pricingService.getPriceForSku("u00006541"));
+
+        clock.set(LocalDateTime.of(2026, 1, 1, 10, 15));
+        pricingService.refreshCurrentPrices();
+        assertNull(pricingService.getPriceForSku("u00006541"));
+    }
+
+    @Test
+    @DisplayName("Should start over from midnight when the day rolls over")
+    void testWrapPastMidnight() {
+        // Arrange
+        clock.set(LocalDateTime.of(2026, 1, 2, 0, 45));
+
+        // Act
+        pricingService.refreshCurrentPrices();
+
+        // Assert
+        assertEquals(9128.0, pricingService.getPriceForSku("b98989000"));
+        assertNull(pricingService.getPriceForSku("u00006541"));
+    }
+
+    @Test
+    @DisplayName("Should stay correct between the minute rolling over and the next tick")
+    void testStaleCacheFallsBackToIndex() {
+        // Arrange: the clock moves but the scheduled refresh has not run yet
+        clock.set(LocalDateTime.of(2026, 1, 1, 10, 7));
+
+        // Act & Assert
+        assertEquals(99.0, pricingService.getPriceForSku("u00006541"));
+    }
+
+    @Test
+    @DisplayName("Should keep returning the first row's price when the cache is disabled")
+    void testDisabledKeepsFirstRowPrice() {
+        // Arrange
+        clock.set(LocalDateTime.of(2026, 1, 1, 10, 7));
+
+        // Act
+        pricingService.setCurrentPriceCacheEnabled(false);
+
+        // Assert
+        assertEquals(101.0, pricingService.getPriceForSku("u00006541"));
+        assertEquals(9128.0, pricingService.getPriceForSku("b98989000"));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(LocalDateTime dateTime) {
+            set(dateTime);
+        }
+
+        void set(LocalDateTime dateTime) {
+            instant = dateTime.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalTime;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("FeedDecompressor Tests")
+class FeedDecompressorTest {
+
+    private static final String TSV =
+            "SkuID\tStartTime\tEndTime\tPrice\n"
+                    + "u00006541\t10:00\t10:15\t101\n"
+                    + "u00006541\t10:05\t10:10\t99";
+
+    @Test
+    @DisplayName("Should pass plain feeds through unchanged")
+    void testPlain() throws IOException {
+        assertEquals(TSV, read(FeedDecompressor.decompress(stream(TSV.getBytes()))));
+    }
+
+    @Test
+    @DisplayName("Should decompress gzip feeds, including multi-member files")
+    void testGzip() throws IOException {
+        // Arrange: two gzip members back to back, as produced by concatenating .gz files
+        int split = TSV.length() / 2;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(gzip(TSV.substring(0, split).getBytes()));
+        bytes.write(gzip(TSV.substring(split).getBytes()));
+
+        // Act
+        String decompressed = read(FeedDecompressor.decompress(stream(bytes.toByteArray())));
+
+        // Assert
+        assertEquals(TSV, decompressed);
+    }
+
+    @Test
+    @DisplayName("Should decompress zstd feeds")
+    void testZstd() throws IOException {
+        assertEquals(TSV, read(FeedDecompressor.decompress(stream(zstdRawFrame(TSV.getBytes())))));
+    }
+
+    @Test
+    @DisplayName("Should load compressed feeds through PricingService")
+    void testLoadCompressedFeed() throws IOException {
+        // Arrange
+        PricingService pricingService = new PricingService();
+
+        // Act
+        pricingService.loadPricingDataFromTSV(stream(gzip(TSV.getBytes())));
+
+        // Assert
+        assertEquals(99.0, pricingService.getPriceForSkuAtTime("u00006541", LocalTime.of(10, 6)));
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** A single-segment zstd frame holding one raw (stored) block; {@code data} must be short. */
+    private static byte[] zstdRawFrame(byte[] data) {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.writeBytes(new byte[] {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd});
+        frame.write(0x20); // Frame header: single segment, 1-byte content size, no checksum
+        frame.write(data.length);
+        int blockHeader = 1 | data.length << 3; // Last block, raw, size
+        frame.write(blockHeader);
+        frame.write(blockHeader >>> 8);
+        frame.write(blockHeader >>> 16);
+        frame.writeBytes(data);
+        return frame.toByteArray();
+    }
+
+    private static InputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes());
+        }
+    }
+}
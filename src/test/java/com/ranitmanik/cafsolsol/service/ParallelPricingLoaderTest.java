@@ -0,0 +1,142 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ParallelPricingLoader Tests")
+class ParallelPricingLoaderTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should produce the same snapshot and report as the sequential parser")
+    void testMatchesSequentialLoad() throws IOException {
+        // Arrange: overlapping windows of a few SKUs spread over many small chunks
+        StringBuilder tsv = new StringBuilder("SkuID\tStartTime\tEndTime\tPrice\n");
+        for (int i = 0; i < 5_000; i++) {
+            String start = String.format("%02d:%02d", (i * 7) % 24, (i * 13) % 60);
+            tsv.append("sku").append(i % 37).append('\t').append(start).append("\t23:59\t");
+            tsv.append(i % 500 == 0 ? "oops" : String.valueOf(i)).append('\n');
+        }
+        byte[] bytes = tsv.toString().getBytes();
+
+        // Act
+        PricingSnapshot.Builder sequential = new PricingSnapshot.Builder();
+        PricingLoadReport expectedReport =
+                new PricingTsvParser(sequential).parse(new ByteArrayInputStream(bytes));
+        PricingSnapshot expected = sequential.build();
+
+        PricingSnapshot.Builder parallel = new PricingSnapshot.Builder();
+        PricingLoadReport report =
+                new ParallelPricingLoader(pool, 100)
+                        .load(new ByteArrayInputStream(bytes), parallel);
+        PricingSnapshot actual = parallel.build(pool);
+
+        // Assert
+        assertEquals(expectedReport.toString(), report.toString());
+        assertEquals(expectedReport.getRejections(), report.getRejections());
+        assertEquals("line 2: invalid price", report.getRejections().get(0));
+        assertEquals(expected.rowCount(), actual.rowCount());
+        assertEquals(expected.segmentCount(), actual.segmentCount());
+        for (int i = 0; i < 37; i++) {
+            int expectedSku = expected.ordinalOf("sku" + i);
+            int sku = actual.ordinalOf("sku" + i);
+            for (int row = 0; row < actual.endRow(sku) - actual.firstRow(sku); row++) {
+                assertEquals(
+                        expected.rowPrice(expected.firstRow(expectedSku) + row),
+                        actual.rowPrice(actual.firstRow(sku) + row));
+            }
+            for (int minute = 0; minute < 24 * 60; minute += 11) {
+                assertEquals(expected.priceAt(expectedSku, minute), actual.priceAt(sku, minute));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should handle lines longer than a chunk and a missing trailing newline")
+    void testLongLines() throws IOException {
+        // Arrange
+        String longSku = "x".repeat(500);
+        String tsv =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + longSku
+                        + "\t10:00\t10:15\t101\n"
+                        + "u00006541\t10:00\t10:15\t99";
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+
+        // Act
+        PricingLoadReport report =
+                new ParallelPricingLoader(pool, 16)
+                        .load(new ByteArrayInputStream(tsv.getBytes()), builder);
+        PricingSnapshot snapshot = builder.build(pool);
+
+        // Assert
+        assertEquals(2, report.getRowsLoaded());
+        assertEquals(101.0, snapshot.priceAt(snapshot.ordinalOf(longSku), 605));
+        assertEquals(99.0, snapshot.priceAt(snapshot.ordinalOf("u00006541"), 605));
+    }
+
+    @Test
+    @DisplayName("Should load an empty feed")
+    void testEmptyFeed() throws IOException {
+        // Arrange
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+
+        // Act
+        PricingLoadReport report =
+                new ParallelPricingLoader(pool, 16)
+                        .load(new ByteArrayInputStream(new byte[0]), builder);
+
+        // Assert
+        assertEquals(0, report.getRowsLoaded());
+        assertEquals(0, builder.build(pool).skuCount());
+    }
+
+    @Test
+    @DisplayName("Should keep at most two chunks per thread in flight while reading")
+    void testBoundsChunksInFlight() throws IOException {
+        // Arrange: a single parser thread that is slower than the reader
+        ForkJoinPool slowPool = new ForkJoinPool(1);
+        StringBuilder tsv = new StringBuilder("SkuID\tStartTime\tEndTime\tPrice\n");
+        for (int i = 0; i < 2_000; i++) {
+            tsv.append("sku").append(i).append("\t10:00\t11:00\t").append(i).append('\n');
+        }
+        int[] mostQueued = new int[1];
+        InputStream in =
+                new ByteArrayInputStream(tsv.toString().getBytes()) {
+                    @Override
+                    public synchronized int read(byte[] b, int off, int len) {
+                        mostQueued[0] =
+                                Math.max(mostQueued[0], slowPool.getQueuedSubmissionCount());
+                        return super.read(b, off, len);
+                    }
+                };
+
+        // Act
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        PricingLoadReport report;
+        try {
+            report = new ParallelPricingLoader(slowPool, 64).load(in, builder);
+        } finally {
+            slowPool.shutdown();
+        }
+
+        // Assert
+        assertTrue(mostQueued[0] <= 2, "queued " + mostQueued[0]);
+        assertEquals(2_000, builder.build().liveSkuCount());
+        assertEquals(0, report.getRejections().size());
+    }
+}
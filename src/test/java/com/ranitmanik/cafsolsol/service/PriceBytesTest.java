@@ -0,0 +1,63 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PriceBytes Tests")
+class PriceBytesTest {
+
+    @Test
+    @DisplayName("Should write prices with the fewest decimals that parse back exactly")
+    void testWritePrice() {
+        // Arrange
+        byte[] buffer = new byte[PriceBytes.MAX_PRICE_BYTES];
+
+        // Act & Assert
+        assertEquals("101.0", price(101, buffer));
+        assertEquals("99.95", price(99.95, buffer));
+        assertEquals("-0.25", price(-0.25, buffer));
+        assertEquals("0.0", price(0, buffer));
+        assertEquals("0.00000001", price(1e-8, buffer));
+
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            double value =
+                    switch (i % 3) {
+                        case 0 -> random.nextInt(100_000) / 100.0;
+                        case 1 -> (random.nextDouble() - 0.5) * 1e6;
+                        default -> Double.longBitsToDouble(random.nextLong());
+                    };
+            if (Double.isFinite(value)) {
+                assertEquals(value, Double.parseDouble(price(value, buffer)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should write times as HH:mm and escape JSON strings as UTF-8")
+    void testWriteMinuteAndJsonString() {
+        // Arrange
+        byte[] buffer = new byte[PriceBytes.maxJsonStringBytes(8)];
+        String value = "a\"\\\n\u00e9\u20ac\ud83d\ude00";
+
+        // Act
+        int minute = PriceBytes.writeMinute(9 * 60 + 5, buffer, 0);
+        String time = new String(buffer, 0, minute, StandardCharsets.US_ASCII);
+        int json = PriceBytes.writeJsonString(value, buffer, 0);
+
+        // Assert
+        assertEquals("09:05", time);
+        assertEquals(
+                "\"a\\\"\\\\\\u000a\u00e9\u20ac\ud83d\ude00\"",
+                new String(buffer, 0, json, StandardCharsets.UTF_8));
+    }
+
+    private static String price(double value, byte[] buffer) {
+        int length = PriceBytes.writePrice(value, buffer, 0);
+        return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+    }
+}
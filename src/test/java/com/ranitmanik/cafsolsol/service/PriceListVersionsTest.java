@@ -0,0 +1,77 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PriceListVersions Tests")
+class PriceListVersionsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 17);
+    private static final LocalDate TOMORROW = TODAY.plusDays(1);
+
+    @Test
+    @DisplayName("Should pick the latest list on or before the date")
+    void testEffectiveList() {
+        // Arrange
+        PricingSnapshot undated = catalog(100, 1.0);
+        PricingSnapshot dated = catalog(100, 2.0);
+        PriceListVersions versions = PriceListVersions.of(undated).with(TOMORROW, dated);
+
+        // Act & Assert
+        assertSame(undated, versions.at(TODAY));
+        assertSame(dated, versions.at(TOMORROW));
+        assertSame(dated, versions.at(TOMORROW.plusYears(1)));
+        assertEquals(PriceListVersions.UNDATED, versions.effectiveDate(TODAY));
+        assertEquals(TOMORROW, versions.effectiveDate(TOMORROW));
+        assertNull(PriceListVersions.EMPTY.effectiveDate(TODAY));
+        assertFalse(PriceListVersions.EMPTY.at(TODAY).isLoaded());
+    }
+
+    @Test
+    @DisplayName("Should store a near-identical list as an overlay over its neighbour")
+    void testShareNearIdenticalList() {
+        // Arrange
+        PricingSnapshot today = catalog(100, 1.0);
+        PriceListVersions versions = PriceListVersions.EMPTY.with(TODAY, today);
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        for (int sku = 1; sku < 100; sku++) {
+            builder.onRow("sku" + sku, 600, 660, sku == 1 ? 99.0 : 1.0);
+        }
+        builder.onRow("new", 600, 660, 5.0);
+
+        // Act
+        PricingSnapshot shared = versions.share(TOMORROW, builder.build());
+
+        // Assert: the base columns are shared and only the changes are in the overlay
+        assertEquals(today.baseRowCount(), shared.baseRowCount());
+        assertEquals(2, shared.overlay().rowCount());
+        assertEquals(100, shared.liveSkuCount());
+        assertFalse(shared.contains("sku0"));
+        assertEquals(99.0, shared.priceAt(shared.ordinalOf("sku1"), 630));
+        assertEquals(1.0, shared.priceAt(shared.ordinalOf("sku2"), 630));
+        assertEquals(5.0, shared.priceAt(shared.ordinalOf("new"), 630));
+    }
+
+    @Test
+    @DisplayName("Should keep a list flat when most of it changed")
+    void testShareMostlyChangedList() {
+        // Arrange
+        PriceListVersions versions = PriceListVersions.EMPTY.with(TODAY, catalog(100, 1.0));
+        PricingSnapshot full = catalog(100, 2.0);
+
+        // Act & Assert
+        assertSame(full, versions.share(TOMORROW, full));
+        assertSame(full, PriceListVersions.EMPTY.share(TOMORROW, full));
+    }
+
+    private static PricingSnapshot catalog(int skus, double price) {
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        for (int sku = 0; sku < skus; sku++) {
+            builder.onRow("sku" + sku, 600, 660, price);
+        }
+        return builder.build();
+    }
+}
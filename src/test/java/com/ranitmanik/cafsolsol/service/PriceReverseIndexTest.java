@@ -0,0 +1,177 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ranitmanik.cafsolsol.model.PricedSkuPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PriceReverseIndex Tests")
+class PriceReverseIndexTest {
+
+    private static final String HEADER = "SkuID\tStartTime\tEndTime\tPrice\n";
+
+    @Test
+    @DisplayName("Should find exactly the SKUs priced at a minute and in a band, cheapest first")
+    void testMatchesBruteForce() {
+        // Arrange: random overlapping and wrapping windows with few distinct prices
+        Random random = new Random(42);
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        for (int row = 0; row < 2_000; row++) {
+            builder.onRow(
+                    "sku" + random.nextInt(300),
+                    random.nextInt(1440),
+                    random.nextInt(1440),
+                    random.nextInt(50));
+        }
+        PricingSnapshot snapshot = builder.build();
+        PriceReverseIndex index = new PriceReverseIndex(snapshot);
+
+        for (int minute : new int[] {0, 1, 599, 600, 1023, 1024, 1439}) {
+            for (double[] band : new double[][] {{-1, 100}, {10, 20}, {25, 25}, {60, 70}}) {
+                // Act
+                List<Integer> found = new ArrayList<>();
+                double previous = Double.NEGATIVE_INFINITY;
+                PriceReverseIndex.Scan scan = index.scan(minute, band[0], band[1], -1);
+                while (scan.next()) {
+                    assertTrue(scan.price() >= previous);
+                    assertEquals(snapshot.priceAt(scan.sku(), minute), scan.price());
+                    previous = scan.price();
+                    found.add(scan.sku());
+                }
+
+                // Assert
+                int expected = 0;
+                for (int sku = 0; sku < snapshot.skuCount(); sku++) {
+                    double price = snapshot.priceAt(sku, minute);
+                    if (price >= band[0] && price <= band[1]) {
+                        expected++;
+                        assertTrue(found.contains(sku), "minute " + minute + " sku " + sku);
+                    }
+                }
+                assertEquals(expected, found.size());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should page through every match with cursors and reject a stale cursor")
+    void testPaging() throws IOException {
+        // Arrange
+        PricingService pricingService = new PricingService();
+        StringBuilder tsv = new StringBuilder(HEADER);
+        for (int sku = 0; sku < 25; sku++) {
+            tsv.append("sku").append(sku).append("\t10:00\t11:00\t").append(sku % 5).append('\n');
+        }
+        tsv.append("late\t13:00\t14:00\t1\n");
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsv.toString().getBytes()));
+
+        // Act
+        List<String> skus = new ArrayList<>();
+        List<Double> prices = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PricedSkuPage page =
+                    pricingService.findPricedSkus(LocalTime.of(10, 30), 1.0, 3.0, cursor, 4);
+            page.forEach(
+                    (skuId, price) -> {
+                        skus.add(skuId);
+                        prices.add(price);
+                    });
+            assertEquals("10:30", page.getTime());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(15, skus.size());
+        assertEquals(4, pages);
+        assertFalse(skus.contains("late"));
+        assertEquals(List.of("sku1", "sku6", "sku11", "sku16", "sku21"), skus.subList(0, 5));
+        assertEquals(3.0, prices.get(14));
+
+        PricedSkuPage first =
+                pricingService.findPricedSkus(LocalTime.of(10, 30), null, null, null, 1);
+        String stale = first.getNextCursor();
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsv.toString().getBytes()));
+        assertThrows(
+                IllegalStateException.class,
+                () -> pricingService.findPricedSkus(LocalTime.of(10, 30), null, null, stale, 1));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> pricingService.findPricedSkus(null, null, null, "garbage", 1));
+    }
+
+    @Test
+    @DisplayName("Should reflect a delta through the overlay")
+    void testDelta() throws IOException {
+        // Arrange
+        PricingService pricingService = new PricingService();
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream(
+                        (HEADER + "a\t10:00\t11:00\t5\n" + "b\t10:00\t11:00\t6").getBytes()));
+
+        // Act
+        pricingService.applyPricingDelta(
+                new ByteArrayInputStream(
+                        (HEADER + "a\t*\t*\tDELETE\n" + "c\t10:00\t11:00\t4").getBytes()));
+        List<String> skus = new ArrayList<>();
+        pricingService
+                .findPricedSkus(LocalTime.of(10, 0), null, null, null, 10)
+                .forEach((skuId, price) -> skus.add(skuId));
+
+        // Assert
+        assertEquals(List.of("c", "b"), skus);
+    }
+
+    @Test
+    @DisplayName("Should build the index when a list is published and count it in the memory gauge")
+    void testBuiltOnPublish() throws Exception {
+        // Arrange
+        PricingService pricingService = new PricingService();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        pricingService.setMeterRegistry(registry);
+
+        // Act: no search, only loads
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream((HEADER + "a\t10:00\t11:00\t5").getBytes()));
+        PriceReverseIndex loaded = awaitIndex(pricingService);
+        pricingService.applyPricingDelta(
+                new ByteArrayInputStream((HEADER + "b\t10:00\t11:00\t6").getBytes()));
+        PriceReverseIndex updated = awaitIndex(pricingService);
+        List<String> skus = new ArrayList<>();
+        pricingService
+                .findPricedSkus(LocalTime.of(10, 0), null, null, null, 10)
+                .forEach((skuId, price) -> skus.add(skuId));
+
+        // Assert
+        assertNotSame(loaded, updated);
+        assertTrue(
+                registry.get("pricing.index.memory").gauge().value()
+                        > updated.estimatedBytes());
+        assertEquals(List.of("a", "b"), skus);
+    }
+
+    /** Waits for the background build of the index of the current data version. */
+    private static PriceReverseIndex awaitIndex(PricingService pricingService)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            PriceReverseIndex index = pricingService.builtReverseIndex();
+            if (index != null
+                    && index.snapshot().version() == pricingService.getDataVersion()) {
+                return index;
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("The reverse index was not built after the publish");
+    }
+}
@@ -0,0 +1,134 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Pricing Delta Tests")
+class PricingDeltaTest {
+
+    private static final String HEADER = "SkuID\tStartTime\tEndTime\tPrice\n";
+
+    private PricingService pricingService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pricingService = new PricingService();
+        StringBuilder tsv = new StringBuilder(HEADER);
+        tsv.append("u00006541\t10:00\t10:15\t101\n");
+        tsv.append("u00006541\t10:05\t10:10\t99\n");
+        tsv.append("i00006111\t10:02\t10:05\t100\n");
+        // Filler SKUs keep the catalog large enough that small deltas stay in the overlay
+        for (int i = 0; i < 100; i++) {
+            tsv.append("filler").append(i).append("\t00:00\t23:59\t").append(i).append('\n');
+        }
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsv.toString().getBytes()));
+    }
+
+    @Test
+    @DisplayName("Should let upserted windows win and replace identical windows")
+    void testUpsert() throws IOException {
+        // Act
+        PricingLoadReport report =
+                applyDelta(
+                        "u00006541\t10:00\t10:15\t120\n"
+                                + "u00006541\t10:12\t10:20\t130\n"
+                                + "n00000001\t08:00\t09:00\t5");
+
+        // Assert
+        assertEquals(3, report.getRowsLoaded());
+        assertEquals(120.0, price("u00006541", "10:06"));
+        assertEquals(130.0, price("u00006541", "10:18"));
+        assertEquals(3, pricingService.getAllPricingData().get("u00006541").size());
+        assertEquals(5.0, price("n00000001", "08:30"));
+        assertEquals(100.0, price("i00006111", "10:03"));
+        assertEquals(7.0, price("filler7", "12:00"));
+    }
+
+    @Test
+    @DisplayName("Should delete single windows and whole SKUs")
+    void testDelete() throws IOException {
+        // Act
+        applyDelta("u00006541\t10:05\t10:10\tDELETE\n" + "i00006111\t*\t*\tDELETE");
+
+        // Assert
+        assertEquals(101.0, price("u00006541", "10:06"));
+        assertFalse(pricingService.skuExists("i00006111"));
+        assertFalse(pricingService.getAllPricingData().containsKey("i00006111"));
+        assertEquals(101, pricingService.getAllPricingData().size());
+    }
+
+    @Test
+    @DisplayName("Should remove a SKU once its last window is deleted")
+    void testDeleteLastWindow() throws IOException {
+        // Act
+        applyDelta("i00006111\t10:02\t10:05\tDELETE");
+
+        // Assert
+        assertFalse(pricingService.skuExists("i00006111"));
+    }
+
+    @Test
+    @DisplayName("Should stack deltas and publish a new version for each")
+    void testConsecutiveDeltas() throws IOException {
+        // Arrange
+        long version = pricingService.getDataVersion();
+
+        // Act
+        applyDelta("i00006111\t*\t*\tDELETE");
+        applyDelta("u00006541\t11:00\t12:00\t50");
+        applyDelta("i00006111\t10:00\t11:00\t60");
+
+        // Assert
+        assertEquals(version + 3, pricingService.getDataVersion());
+        assertEquals(60.0, price("i00006111", "10:03"));
+        assertEquals(50.0, price("u00006541", "11:30"));
+        assertEquals(99.0, price("u00006541", "10:06"));
+    }
+
+    @Test
+    @DisplayName("Should share base columns and compact once the overlay grows")
+    void testOverlayAndCompaction() {
+        // Arrange
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        for (int i = 0; i < 100; i++) {
+            builder.onRow("sku" + i, 600, 660, i);
+        }
+        PricingSnapshot base = builder.build();
+        PricingDelta small = new PricingDelta();
+        small.onRow("sku1", 630, 640, 1000);
+        PricingDelta large = new PricingDelta();
+        for (int i = 0; i < 30; i++) {
+            large.onRow("sku" + i, 630, 640, 1000);
+        }
+
+        // Act
+        PricingSnapshot layered = small.applyTo(base);
+        PricingSnapshot compacted = large.applyTo(layered);
+
+        // Assert
+        assertNotNull(layered.overlay());
+        assertEquals(100, layered.baseRowCount());
+        assertEquals(100, layered.liveSkuCount());
+        assertEquals(1000.0, layered.priceAt(layered.ordinalOf("sku1"), 635));
+        assertEquals(2.0, layered.priceAt(layered.ordinalOf("sku2"), 635));
+        assertNull(compacted.overlay());
+        assertEquals(130, compacted.rowCount());
+        assertEquals(1000.0, compacted.priceAt(compacted.ordinalOf("sku29"), 635));
+    }
+
+    private PricingLoadReport applyDelta(String rows) throws IOException {
+        byte[] tsv = (HEADER + rows).getBytes();
+        return pricingService.applyPricingDelta(new ByteArrayInputStream(tsv));
+    }
+
+    private Double price(String skuId, String time) {
+        return pricingService.getPriceForSkuAtTime(skuId, LocalTime.parse(time));
+    }
+}
@@ -0,0 +1,128 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ranitmanik.cafsolsol.model.PricingExport;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PricingExporter Tests")
+class PricingExporterTest {
+
+    private static final String HEADER = "SkuID\tStartTime\tEndTime\tPrice\n";
+
+    @Test
+    @DisplayName("Should export TSV that loads back into the same prices, deltas included")
+    void testTsvRoundTrip() throws IOException {
+        // Arrange: overlapping windows, fractional and negative prices, then a delta overlay
+        Random random = new Random(7);
+        StringBuilder tsv = new StringBuilder(HEADER);
+        for (int row = 0; row < 3_000; row++) {
+            int start = random.nextInt(1440);
+            int end = random.nextInt(1440);
+            tsv.append("sku")
+                    .append(random.nextInt(500))
+                    .append('\t')
+                    .append(String.format("%02d:%02d", start / 60, start % 60))
+                    .append('\t')
+                    .append(String.format("%02d:%02d", end / 60, end % 60))
+                    .append('\t')
+                    .append(random.nextBoolean() ? random.nextInt(200) - 20 : random.nextDouble())
+                    .append('\n');
+        }
+        PricingService original = load(tsv.toString());
+        original.applyPricingDelta(
+                new ByteArrayInputStream(
+                        (HEADER + "sku1\t*\t*\tDELETE\n" + "extra\t10:00\t11:00\t12.5")
+                                .getBytes()));
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = original.exportPricingData(null, PricingExport.Format.TSV).writeTo(out);
+        PricingService reloaded = load(out.toString(StandardCharsets.UTF_8));
+
+        // Assert
+        assertTrue(rows > 2_000);
+        assertFalse(reloaded.skuExists("sku1"));
+        assertEquals(12.5, reloaded.getPriceForSkuAtTime("extra", LocalTime.of(10, 30)));
+        for (int sku = 0; sku < 500; sku++) {
+            for (int minute = 0; minute < 1440; minute += 7) {
+                LocalTime time = LocalTime.of(minute / 60, minute % 60);
+                assertEquals(
+                        original.getPriceForSkuAtTime("sku" + sku, time),
+                        reloaded.getPriceForSkuAtTime("sku" + sku, time));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should write one escaped JSON object per row")
+    void testNdjson() throws IOException {
+        // Arrange
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        builder.onRow("plain", 600, 615, 101);
+        builder.onRow("quo\"te\\", 0, 1439, -0.25);
+        builder.onRow("caf\u00e9", 1380, 60, 3);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = PricingExporter.writeNdjson(builder.build(), out);
+
+        // Assert
+        assertEquals(3, rows);
+        assertEquals(
+                "{\"skuId\":\"plain\",\"startTime\":\"10:00\","
+                        + "\"endTime\":\"10:15\",\"price\":101.0}\n"
+                        + "{\"skuId\":\"quo\\\"te\\\\\",\"startTime\":\"00:00\","
+                        + "\"endTime\":\"23:59\",\"price\":-0.25}\n"
+                        + "{\"skuId\":\"caf\u00e9\",\"startTime\":\"23:00\","
+                        + "\"endTime\":\"01:00\",\"price\":3.0}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should hand the stream bounded writes however many rows there are")
+    void testBoundedWrites() throws IOException {
+        // Arrange
+        PricingSnapshot.Builder builder = new PricingSnapshot.Builder();
+        for (int sku = 0; sku < 20_000; sku++) {
+            builder.onRow("sku" + sku, 600, 615, sku);
+        }
+        int[] largestWrite = new int[1];
+        long[] bytes = new long[1];
+        OutputStream out =
+                new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                        bytes[0]++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        largestWrite[0] = Math.max(largestWrite[0], len);
+                        bytes[0] += len;
+                    }
+                };
+
+        // Act
+        long rows = PricingExporter.writeTsv(builder.build(), out);
+
+        // Assert
+        assertEquals(20_000, rows);
+        assertTrue(bytes[0] > 64 * 1024 * 4);
+        assertTrue(largestWrite[0] <= 64 * 1024);
+    }
+
+    private static PricingService load(String tsv) throws IOException {
+        PricingService pricingService = new PricingService();
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsv.getBytes()));
+        return pricingService;
+    }
+}
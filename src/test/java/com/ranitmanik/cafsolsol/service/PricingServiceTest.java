@@ -2,12 +2,28 @@ package com.ranitmanik.cafsolsol.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.ranitmanik.cafsolsol.model.PriceAggregate;
+import com.ranitmanik.cafsolsol.model.PriceQuery;
+import com.ranitmanik.cafsolsol.model.PriceQuote;
+import com.ranitmanik.cafsolsol.model.PriceTimeline;
 import com.ranitmanik.cafsolsol.model.PricingRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -198,4 +214,372 @@ class PricingServiceTest {
                 pricingService.getPriceForSkuAtTime("u00006541", LocalTime.parse("10:15"));
         assertNull(priceAtEnd);
     }
+
+    @Test
+    @DisplayName("Should report not loaded until the first dataset is published")
+    void testIsDataLoaded() throws IOException {
+        // Arrange
+        String tsvData = "SkuID\tStartTime\tEndTime\tPrice\n" + "u00006541\t10:00\t10:15\t101";
+        assertFalse(pricingService.isDataLoaded());
+
+        // Act
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvData.getBytes()));
+
+        // Assert
+        assertTrue(pricingService.isDataLoaded());
+    }
+
+    @Test
+    @DisplayName("Should never expose a partially loaded dataset to concurrent readers")
+    void testReloadIsAtomicForReaders() throws Exception {
+        // Arrange
+        StringBuilder tsv = new StringBuilder("SkuID\tStartTime\tEndTime\tPrice\n");
+        for (int i = 0; i < 2000; i++) {
+            tsv.append(String.format("s%08d\t10:00\t11:00\t%d%n", i, i));
+        }
+        byte[] tsvBytes = tsv.toString().getBytes();
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvBytes));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader =
+                new Thread(
+                        () -> {
+                            while (running.get()) {
+                                if (!pricingService.skuExists("s00001999")
+                                        || pricingService.getPriceForSkuAtTime(
+                                                        "s00000000", LocalTime.parse("10:30"))
+                                                == null) {
+                                    misses.incrementAndGet();
+                                }
+                            }
+                        });
+
+        // Act
+        reader.start();
+        for (int i = 0; i < 20; i++) {
+            pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvBytes));
+        }
+        running.set(false);
+        reader.join();
+
+        // Assert
+        assertEquals(0, misses.get());
+    }
+
+    @Test
+    @DisplayName("Should price a batch of queries with a status per item")
+    void testGetPricesBatch() throws IOException {
+        // Arrange
+        String tsvData =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t101\n"
+                        + "u00006541\t10:05\t10:10\t99";
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvData.getBytes()));
+
+        // Act
+        List<PriceQuote> quotes =
+                pricingService.getPrices(
+                        List.of(
+                                new PriceQuery("u00006541", "10:03"),
+                                new PriceQuery("u00006541", "10:05"),
+                                new PriceQuery("u00006541", "09:55"),
+                                new PriceQuery("u00006541", null),
+                                new PriceQuery("nonExistent", "10:03"),
+                                new PriceQuery("u00006541", "10-03")));
+
+        // Assert
+        assertEquals(6, quotes.size());
+        assertEquals(101.0, quotes.get(0).getPrice());
+        assertEquals(PriceQuote.Status.OK, quotes.get(0).getStatus());
+        assertEquals(99.0, quotes.get(1).getPrice());
+        assertEquals(PriceQuote.Status.NOT_SET, quotes.get(2).getStatus());
+        assertNull(quotes.get(2).getPrice());
+        assertEquals(101.0, quotes.get(3).getPrice());
+        assertEquals(PriceQuote.Status.NOT_FOUND, quotes.get(4).getStatus());
+        assertEquals(PriceQuote.Status.INVALID_TIME, quotes.get(5).getStatus());
+        assertEquals("10-03", quotes.get(5).getTime());
+    }
+
+    @Test
+    @DisplayName("Should record load and lookup metrics")
+    void testMetrics() throws IOException {
+        // Arrange
+        MeterRegistry registry = new SimpleMeterRegistry();
+        pricingService.setMeterRegistry(registry);
+        String tsvData =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t101\n"
+                        + "u00006541\t10:00\n"
+                        + "i00006111\t10:02\t10:05\t100";
+
+        // Act
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvData.getBytes()));
+        pricingService.getPriceForSkuAtTime("u00006541", LocalTime.parse("10:03"));
+        pricingService.getPriceForSkuAtTime("u00006541", LocalTime.parse("09:55"));
+        pricingService.getPriceForSkuAtTime("nonExistent", LocalTime.parse("10:03"));
+
+        // Assert
+        assertEquals(2.0, loadRows(registry, "loaded"));
+        assertEquals(1.0, loadRows(registry, "rejected"));
+        assertEquals(2.0, registry.get("pricing.skus").gauge().value());
+        assertEquals(3, registry.get("pricing.lookup").tag("operation", "at_time").timer().count());
+        assertEquals(1.0, lookupResults(registry, "hit"));
+        assertEquals(1.0, lookupResults(registry, "not_set"));
+        assertEquals(1.0, lookupResults(registry, "not_found"));
+    }
+
+    @Test
+    @DisplayName("Should price past and future dates from their dated price lists")
+    void testDatedPriceLists() throws IOException {
+        // Arrange
+        pricingService.setClock(fixedAt(LocalDateTime.of(2026, 10, 17, 12, 0)));
+        String today = "SkuID\tStartTime\tEndTime\tPrice\n" + "u00006541\t10:00\t10:15\t101";
+        String tomorrow =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t111\n"
+                        + "i00006111\t10:02\t10:05\t100";
+
+        // Act
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream(today.getBytes()), LocalDate.of(2026, 10, 17));
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream(tomorrow.getBytes()), LocalDate.of(2026, 10, 18));
+
+        // Assert
+        LocalDateTime todayAt = LocalDateTime.of(2026, 10, 17, 10, 5);
+        LocalDateTime tomorrowAt = LocalDateTime.of(2026, 10, 18, 10, 5);
+        assertEquals(101.0, pricingService.getPriceForSkuAt("u00006541", todayAt));
+        assertEquals(111.0, pricingService.getPriceForSkuAt("u00006541", tomorrowAt));
+        assertNull(pricingService.getPriceForSkuAt("u00006541", todayAt.minusDays(1)));
+        assertFalse(pricingService.skuExists("i00006111", todayAt.toLocalDate()));
+        assertTrue(pricingService.skuExists("i00006111", tomorrowAt.toLocalDate()));
+        assertEquals(101.0, pricingService.getPriceForSkuAtTime("u00006541", LocalTime.of(10, 5)));
+        assertEquals(
+                List.of(LocalDate.of(2026, 10, 17), LocalDate.of(2026, 10, 18)),
+                pricingService.getEffectiveDates());
+        assertEquals(LocalDate.of(2026, 10, 17), pricingService.getEffectiveDate());
+        assertEquals(
+                LocalDate.of(2026, 10, 17),
+                pricingService.getAllPricingData().get("u00006541").get(0).getEffectiveDate());
+    }
+
+    @Test
+    @DisplayName("Should leave the latest published lists on disk when loads race to persist")
+    void testPersistsInPublishOrder() throws Exception {
+        // Arrange
+        Path path = Files.createTempDirectory("pricing-snapshot").resolve("pricing.snapshot");
+        pricingService.setSnapshotPath(path.toString());
+        pricingService.setClock(fixedAt(LocalDateTime.of(2026, 10, 17, 12, 0)));
+        String header = "SkuID\tStartTime\tEndTime\tPrice\n";
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream((header + "u00006541\t10:00\t10:15\t1").getBytes()),
+                LocalDate.of(2026, 10, 18));
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream((header + "u00006541\t10:00\t10:15\t1").getBytes()));
+        AtomicInteger price = new AtomicInteger();
+        Runnable deltas =
+                () -> {
+                    for (int i = 0; i < 50; i++) {
+                        String row = "u00006541\t10:00\t10:15\t" + price.incrementAndGet();
+                        try {
+                            pricingService.applyPricingDelta(
+                                    new ByteArrayInputStream((header + row).getBytes()));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                };
+
+        // Act
+        Thread first = new Thread(deltas);
+        Thread second = new Thread(deltas);
+        first.start();
+        second.start();
+        first.join();
+        second.join();
+        PricingService restored = new PricingService();
+        restored.setSnapshotPath(path.toString());
+        restored.restoreSnapshot();
+
+        // Assert: the dated list dropped by the full load stays dropped
+        assertEquals(
+                pricingService.getPriceForSkuAtTime("u00006541", LocalTime.of(10, 5)),
+                restored.getPriceForSkuAtTime("u00006541", LocalTime.of(10, 5)));
+        assertEquals(List.of(), restored.getEffectiveDates());
+    }
+
+    @Test
+    @DisplayName("Should switch to a preloaded price list when its day begins")
+    void testPreloadedPriceListTakesEffect() throws IOException {
+        // Arrange
+        pricingService.setClock(fixedAt(LocalDateTime.of(2026, 10, 17, 23, 59)));
+        String undated = "SkuID\tStartTime\tEndTime\tPrice\n" + "u00006541\t00:00\t23:59\t101";
+        String future = "SkuID\tStartTime\tEndTime\tPrice\n" + "u00006541\t00:00\t23:59\t90";
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(undated.getBytes()));
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream(future.getBytes()), LocalDate.of(2026, 10, 18));
+        long version = pricingService.getDataVersion();
+        assertEquals(101.0, pricingService.getPriceForSkuAtTime("u00006541", LocalTime.of(9, 0)));
+
+        // Act
+        pricingService.setClock(fixedAt(LocalDateTime.of(2026, 10, 18, 0, 0)));
+        pricingService.refreshCurrentPrices();
+
+        // Assert
+        assertEquals(90.0, pricingService.getPriceForSkuAtTime("u00006541", LocalTime.of(9, 0)));
+        assertEquals(version + 1, pricingService.getDataVersion());
+        assertTrue(pricingService.hasUndatedPriceList());
+
+        // An undated load replaces every list
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(undated.getBytes()));
+        assertEquals(List.of(), pricingService.getEffectiveDates());
+        assertEquals(101.0, pricingService.getPriceForSkuAtTime("u00006541", LocalTime.of(9, 0)));
+    }
+
+    @Test
+    @DisplayName("Should price windows that wrap past midnight and export the timeline")
+    void testWrappingWindowTimeline() throws IOException {
+        // Arrange
+        String tsvData =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "n00000001\t22:00\t02:00\t50\n"
+                        + "n00000001\t01:00\t03:00\t60";
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvData.getBytes()));
+
+        // Act
+        PriceTimeline timeline = pricingService.getPriceTimeline("n00000001", null);
+
+        // Assert
+        assertEquals(50.0, pricingService.getPriceForSkuAtTime("n00000001", LocalTime.of(23, 30)));
+        assertEquals(50.0, pricingService.getPriceForSkuAtTime("n00000001", LocalTime.of(0, 30)));
+        assertEquals(60.0, pricingService.getPriceForSkuAtTime("n00000001", LocalTime.of(1, 30)));
+        assertNull(pricingService.getPriceForSkuAtTime("n00000001", LocalTime.of(12, 0)));
+        List<PriceTimeline.Segment> segments = timeline.getSegments();
+        assertEquals(3, segments.size());
+        assertSegment(segments.get(0), "00:00", "01:00", 50.0);
+        assertSegment(segments.get(1), "01:00", "03:00", 60.0);
+        assertSegment(segments.get(2), "22:00", "24:00", 50.0);
+        assertNull(timeline.getEffectiveDate());
+        assertEquals(pricingService.getDataVersion(), timeline.getDataVersion());
+        assertNull(pricingService.getPriceTimeline("nonExistent", null));
+        assertTrue(
+                pricingService
+                        .getAllPricingData()
+                        .get("n00000001")
+                        .get(0)
+                        .isTimeInRange(LocalTime.of(23, 0)));
+    }
+
+    @Test
+    @DisplayName("Should answer range and aggregate queries from the segment index")
+    void testRangeAndAggregates() throws IOException {
+        // Arrange: 10:00-10:15 @ 101 with 10:05-10:10 @ 99 on top, and a wrapping window
+        String tsvData =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t101\n"
+                        + "u00006541\t10:05\t10:10\t99\n"
+                        + "n00000001\t23:00\t01:00\t40\n"
+                        + "i00006111\t12:00\t13:00\t7";
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvData.getBytes()));
+
+        // Act
+        PriceTimeline range =
+                pricingService.getPriceTimeline(
+                        "u00006541", null, LocalTime.of(10, 3), LocalTime.of(10, 7));
+        List<PriceAggregate> aggregates =
+                pricingService.getPriceAggregates(
+                        List.of("u00006541", "i00006111", "missing"),
+                        null,
+                        LocalTime.of(9, 0),
+                        LocalTime.of(11, 0));
+        List<PriceAggregate> overnight =
+                pricingService.getPriceAggregates(
+                        List.of("n00000001"), null, LocalTime.of(23, 30), LocalTime.of(0, 30));
+
+        // Assert
+        assertEquals(2, range.getSegments().size());
+        assertSegment(range.getSegments().get(0), "10:03", "10:05", 101.0);
+        assertSegment(range.getSegments().get(1), "10:05", "10:07", 99.0);
+
+        PriceAggregate u = aggregates.get(0);
+        assertEquals(PriceQuote.Status.OK, u.getStatus());
+        assertEquals(99.0, u.getMin());
+        assertEquals(101.0, u.getMax());
+        assertEquals(15, u.getPricedMinutes());
+        assertEquals((101.0 * 10 + 99.0 * 5) / 15, u.getAverage(), 1e-9);
+        assertEquals(PriceQuote.Status.NOT_SET, aggregates.get(1).getStatus());
+        assertEquals(PriceQuote.Status.NOT_FOUND, aggregates.get(2).getStatus());
+
+        assertEquals(60, overnight.get(0).getPricedMinutes());
+        assertEquals(40.0, overnight.get(0).getAverage());
+    }
+
+    @Test
+    @DisplayName("Should write the same quotes as the regular lookups into a buffer")
+    void testWritePriceQuote() throws IOException {
+        // Arrange
+        String tsvData =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t101\n"
+                        + "u00006541\t10:05\t10:10\t99.95\n"
+                        + "sku \"quoted\"\t00:00\t23:59\t-0.5";
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvData.getBytes()));
+        byte[] buffer = new byte[PricingService.maxQuoteBytes(16)];
+
+        // Act & Assert
+        assertQuote(
+                "{\"skuId\":\"u00006541\",\"time\":\"10:07\",\"price\":99.95}",
+                pricingService.writePriceQuote("u00006541", "10:07", buffer),
+                buffer);
+        assertQuote(
+                "{\"skuId\":\"u00006541\",\"time\":\"09:59\",\"price\":\"NOT SET\"}",
+                pricingService.writePriceQuote("u00006541", "09:59", buffer),
+                buffer);
+        assertQuote(
+                "{\"skuId\":\"sku \\\"quoted\\\"\",\"time\":\"23:00\",\"price\":-0.5}",
+                pricingService.writePriceQuote("sku \"quoted\"", "23:00", buffer),
+                buffer);
+        assertQuote(
+                "{\"skuId\":\"u00006541\",\"price\":101.0}",
+                pricingService.writePriceQuote("u00006541", null, buffer),
+                buffer);
+        assertEquals(
+                PricingService.QUOTE_NOT_FOUND,
+                pricingService.writePriceQuote("missing", "10:07", buffer));
+        for (String invalid : new String[] {"24:00", "10:60", "9:30", "10:30:00", "1a:00"}) {
+            assertEquals(
+                    PricingService.QUOTE_INVALID_TIME,
+                    pricingService.writePriceQuote("u00006541", invalid, buffer),
+                    invalid);
+        }
+    }
+
+    private static void assertQuote(String expected, int length, byte[] buffer) {
+        assertEquals(expected, new String(buffer, 0, length, StandardCharsets.UTF_8));
+    }
+
+    private static void assertSegment(
+            PriceTimeline.Segment segment, String start, String end, double price) {
+        assertEquals(start, segment.getStart());
+        assertEquals(end, segment.getEnd());
+        assertEquals(price, segment.getPrice());
+    }
+
+    private static Clock fixedAt(LocalDateTime dateTime) {
+        ZoneId zone = ZoneId.systemDefault();
+        return Clock.fixed(dateTime.atZone(zone).toInstant(), zone);
+    }
+
+    private static double loadRows(MeterRegistry registry, String outcome) {
+        return registry.get("pricing.load.rows").tag("outcome", outcome).counter().count();
+    }
+
+    private static double lookupResults(MeterRegistry registry, String result) {
+        return registry.get("pricing.lookup.results")
+                .tag("operation", "at_time")
+                .tag("result", result)
+                .counter()
+                .count();
+    }
 }
@@ -0,0 +1,238 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ranitmanik.cafsolsol.model.PriceAggregate;
+import com.ranitmanik.cafsolsol.model.PriceQuery;
+import com.ranitmanik.cafsolsol.model.PriceQuote;
+import com.ranitmanik.cafsolsol.model.PriceQuote.Status;
+import com.ranitmanik.cafsolsol.model.ShardAssignment;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PricingShard Tests")
+class PricingShardTest {
+
+    private static final String HEADER = "SkuID\tStartTime\tEndTime\tPrice\n";
+    private static final int SHARDS = 3;
+    private static final int SKUS = 300;
+    private static final List<String> NODES =
+            List.of("http://pricing-0:8080", "http://pricing-1:8080", "http://pricing-2:8080");
+
+    private List<PricingService> instances;
+
+    @BeforeEach
+    void setUp() {
+        instances = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            PricingService instance = new PricingService();
+            instance.setShard(shard, SHARDS, NODES);
+            instances.add(instance);
+        }
+    }
+
+    @Test
+    @DisplayName("Should load every SKU of a shared feed on exactly its owning instance")
+    void testSharedFeedIsPartitioned() throws IOException {
+        // Arrange
+        byte[] feed = catalog().getBytes();
+
+        // Act
+        for (PricingService instance : instances) {
+            instance.loadPricingDataFromTSV(new ByteArrayInputStream(feed));
+        }
+
+        // Assert
+        assertPartitioned();
+        for (int sku = 0; sku < SKUS; sku++) {
+            String skuId = "sku" + sku;
+            PricingService owner = instances.get(instances.get(0).getShardOf(skuId));
+            assertEquals((double) sku, owner.getPriceForSkuAtTime(skuId, LocalTime.of(10, 5)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should partition the same way when the feed is parsed in parallel chunks")
+    void testParallelLoadIsPartitioned() throws IOException {
+        // Arrange
+        byte[] feed = catalog().getBytes();
+
+        // Act
+        for (PricingService instance : instances) {
+            instance.setLoadParallelism(2);
+            instance.loadPricingDataFromTSV(new ByteArrayInputStream(feed));
+        }
+
+        // Assert
+        assertPartitioned();
+    }
+
+    @Test
+    @DisplayName("Should apply only the owned rows of a shared delta")
+    void testSharedDeltaIsPartitioned() throws IOException {
+        // Arrange
+        byte[] feed = catalog().getBytes();
+        byte[] delta = (HEADER + "sku7\t10:00\t11:00\t700\n" + "new\t10:00\t11:00\t1").getBytes();
+        for (PricingService instance : instances) {
+            instance.loadPricingDataFromTSV(new ByteArrayInputStream(feed));
+        }
+
+        // Act
+        for (PricingService instance : instances) {
+            instance.applyPricingDelta(new ByteArrayInputStream(delta));
+        }
+
+        // Assert
+        for (PricingService instance : instances) {
+            boolean ownsNew = instance.ownsSku("new");
+            assertEquals(ownsNew, instance.skuExists("new"));
+            if (instance.ownsSku("sku7")) {
+                assertEquals(700.0, instance.getPriceForSkuAtTime("sku7", LocalTime.of(10, 30)));
+            } else {
+                assertFalse(instance.skuExists("sku7"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep only the owned SKUs of a shared snapshot file")
+    void testSharedSnapshotIsPartitioned() throws IOException {
+        // Arrange
+        PricingService whole = new PricingService();
+        whole.loadPricingDataFromTSV(new ByteArrayInputStream(catalog().getBytes()));
+        Path snapshot = Files.createTempFile("pricing-shared", ".snapshot");
+        whole.saveSnapshot(snapshot);
+
+        // Act
+        for (PricingService instance : instances) {
+            instance.loadSnapshot(snapshot);
+        }
+
+        // Assert
+        assertPartitioned();
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Test
+    @DisplayName("Should tell SKUs of other shards from unknown ones in batch results")
+    void testForeignSkusInBatches() throws IOException {
+        // Arrange
+        PricingService instance = instances.get(0);
+        instance.loadPricingDataFromTSV(new ByteArrayInputStream(catalog().getBytes()));
+        String local = null;
+        String foreign = null;
+        for (int sku = 0; sku < SKUS; sku++) {
+            if (instance.ownsSku("sku" + sku)) {
+                local = local != null ? local : "sku" + sku;
+            } else {
+                foreign = foreign != null ? foreign : "sku" + sku;
+            }
+        }
+        String unknown = "unknown0";
+        for (int i = 1; !instance.ownsSku(unknown); i++) {
+            unknown = "unknown" + i; // One this instance would hold if it were loaded
+        }
+
+        // Act
+        List<PriceQuote> quotes =
+                instance.getPrices(
+                        List.of(
+                                new PriceQuery(local, "10:05"),
+                                new PriceQuery(foreign, "10:05"),
+                                new PriceQuery(unknown, "10:05")));
+        List<PriceAggregate> aggregates =
+                instance.getPriceAggregates(List.of(local, foreign, unknown), null, null, null);
+
+        // Assert
+        assertEquals(
+                List.of(Status.OK, Status.OTHER_SHARD, Status.NOT_FOUND),
+                quotes.stream().map(PriceQuote::getStatus).toList());
+        assertEquals(
+                List.of(Status.OK, Status.OTHER_SHARD, Status.NOT_FOUND),
+                aggregates.stream().map(PriceAggregate::getStatus).toList());
+    }
+
+    @Test
+    @DisplayName("Should cover the hash space with contiguous ranges and name the owner node")
+    void testAssignment() {
+        // Arrange
+        long expectedStart = 0;
+
+        // Act & Assert
+        for (PricingService instance : instances) {
+            ShardAssignment assignment = instance.getShardAssignment();
+            assertEquals(SHARDS, assignment.getShards());
+            assertEquals(NODES, assignment.getNodes());
+            assertEquals(expectedStart, assignment.getHashRangeStart());
+            assertTrue(assignment.getHashRangeEnd() > assignment.getHashRangeStart());
+            expectedStart = assignment.getHashRangeEnd();
+        }
+        assertEquals(1L << 32, expectedStart);
+
+        String skuId = "sku42";
+        int shard = instances.get(0).getShardOf(skuId);
+        long hash = PricingShard.hash(skuId) & 0xffffffffL;
+        ShardAssignment owner = instances.get(shard).getShardAssignment();
+        assertTrue(hash >= owner.getHashRangeStart() && hash < owner.getHashRangeEnd());
+        assertEquals(URI.create(NODES.get(shard)), instances.get(0).getOwnerNode(skuId));
+    }
+
+    @Test
+    @DisplayName("Should own every SKU and know no other node without partitioning")
+    void testSingleShard() {
+        // Arrange
+        PricingService instance = new PricingService();
+
+        // Act
+        ShardAssignment assignment = instance.getShardAssignment();
+
+        // Assert
+        assertTrue(instance.ownsSku("anything"));
+        assertNull(instance.getOwnerNode("anything"));
+        assertEquals(0, assignment.getHashRangeStart());
+        assertEquals(1L << 32, assignment.getHashRangeEnd());
+    }
+
+    @Test
+    @DisplayName("Should reject an index outside the shard count or a wrong number of nodes")
+    void testInvalidAssignment() {
+        assertThrows(IllegalArgumentException.class, () -> new PricingShard(3, 3, List.of()));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new PricingShard(0, 3, List.of(URI.create(NODES.get(0)))));
+    }
+
+    private void assertPartitioned() {
+        for (int sku = 0; sku < SKUS; sku++) {
+            String skuId = "sku" + sku;
+            int holders = 0;
+            for (PricingService instance : instances) {
+                if (instance.skuExists(skuId)) {
+                    holders++;
+                    assertTrue(instance.ownsSku(skuId));
+                }
+            }
+            assertEquals(1, holders, skuId + " should be on exactly one instance");
+        }
+        for (PricingService instance : instances) {
+            assertTrue(instance.isDataLoaded());
+        }
+    }
+
+    private static String catalog() {
+        StringBuilder tsv = new StringBuilder(HEADER);
+        for (int sku = 0; sku < SKUS; sku++) {
+            tsv.append("sku").append(sku).append("\t10:00\t10:15\t").append(sku).append('\n');
+        }
+        return tsv.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PricingSnapshotFile Tests")
+class PricingSnapshotFileTest {
+
+    private PricingService pricingService;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pricingService = new PricingService();
+        snapshotFile = Files.createTempFile("pricing", ".snapshot");
+        snapshotFile.toFile().deleteOnExit();
+
+        String tsvData =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t101\n"
+                        + "i00006111\t10:02\t10:05\t100\n"
+                        + "u09099000\t10:00\t10:08\t5000\n"
+                        + "t12182868\t10:00\t20:00\t87\n"
+                        + "b98989000\t00:30\t07:00\t9128\n"
+                        + "u00006541\t10:05\t10:10\t99\n"
+                        + "t12182868\t14:00\t15:00\t92.5";
+        pricingService.loadPricingDataFromTSV(new ByteArrayInputStream(tsvData.getBytes()));
+    }
+
+    @Test
+    @DisplayName("Should answer the same queries after a write and reopen")
+    void testRoundTrip() throws IOException {
+        // Arrange
+        pricingService.saveSnapshot(snapshotFile);
+        PricingService restored = new PricingService();
+
+        // Act
+        restored.loadSnapshot(snapshotFile);
+
+        // Assert
+        assertTrue(restored.isDataLoaded());
+        assertEquals(101.0, restored.getPriceForSkuAtTime("u00006541", LocalTime.parse("10:03")));
+        assertEquals(99.0, restored.getPriceForSkuAtTime("u00006541", LocalTime.parse("10:05")));
+        assertEquals(92.5, restored.getPriceForSkuAtTime("t12182868", LocalTime.parse("14:30")));
+        assertNull(restored.getPriceForSkuAtTime("u00006541", LocalTime.parse("09:55")));
+        assertEquals(101.0, restored.getPriceForSku("u00006541"));
+        assertFalse(restored.skuExists("nonExistent"));
+        assertEquals(
+                pricingService.getAllPricingData().size(), restored.getAllPricingData().size());
+    }
+
+    @Test
+    @DisplayName("Should round-trip an empty dataset")
+    void testEmptyDataset() throws IOException {
+        // Arrange
+        pricingService.loadPricingDataFromTSV(
+                new ByteArrayInputStream("SkuID\tStartTime\tEndTime\tPrice\n".getBytes()));
+        pricingService.saveSnapshot(snapshotFile);
+        PricingService restored = new PricingService();
+
+        // Act
+        restored.loadSnapshot(snapshotFile);
+
+        // Assert
+        assertTrue(restored.isDataLoaded());
+        assertTrue(restored.getAllPricingData().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not complete snapshots")
+    void testRejectCorruptFile() throws IOException {
+        // Arrange
+        pricingService.saveSnapshot(snapshotFile);
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length - 8));
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> new PricingService().loadSnapshot(snapshotFile));
+    }
+
+    @Test
+    @DisplayName("Should reject bad name lengths and offsets, and start without the snapshot")
+    void testRejectCorruptSections() throws IOException {
+        // Arrange
+        pricingService.saveSnapshot(snapshotFile);
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int rowOffsets = (24 + header.getInt(20) + 7) & ~7;
+        Path badName = Files.createTempFile("pricing", ".snapshot");
+        Path badOffset = Files.createTempFile("pricing", ".snapshot");
+        badName.toFile().deleteOnExit();
+        badOffset.toFile().deleteOnExit();
+        Files.write(badName, withInt(bytes, 24, -5));
+        Files.write(badOffset, withInt(bytes, rowOffsets + 4, 1_000_000));
+        PricingService restored = new PricingService();
+        restored.setSnapshotPath(badOffset.toString());
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> new PricingService().loadSnapshot(badName));
+        assertThrows(IOException.class, () -> new PricingService().loadSnapshot(badOffset));
+        restored.restoreSnapshot();
+        assertFalse(restored.isDataLoaded());
+    }
+
+    private static byte[] withInt(byte[] bytes, int position, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(position, value);
+        return copy;
+    }
+}
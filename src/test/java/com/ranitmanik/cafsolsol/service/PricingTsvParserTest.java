@@ -0,0 +1,188 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ranitmanik.cafsolsol.model.PricingLoadReport;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PricingTsvParser Tests")
+class PricingTsvParserTest {
+
+    private final List<String> rows = new ArrayList<>();
+    private final List<String> skuInstances = new ArrayList<>();
+
+    @Test
+    @DisplayName("Should parse rows into minutes of the day and primitive prices")
+    void testParseRows() throws IOException {
+        // Arrange
+        String tsv =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t101\n"
+                        + "i00006111\t00:00\t23:59\t99.75\r\n"
+                        + "u00006541\t 10:05 \t10:10\t-0.5";
+
+        // Act
+        PricingLoadReport report = parse(tsv);
+
+        // Assert
+        assertEquals(
+                List.of(
+                        "u00006541 600 615 101.0",
+                        "i00006111 0 1439 99.75",
+                        "u00006541 605 610 -0.5"),
+                rows);
+        assertEquals(3, report.getRowsLoaded());
+        assertEquals(0, report.getRowsRejected());
+    }
+
+    @Test
+    @DisplayName("Should report rejected and skipped rows with their line numbers")
+    void testReportRejectedRows() throws IOException {
+        // Arrange
+        String tsv =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\n"
+                        + "\n"
+                        + "u00006541\t10:0\t10:15\t101\n"
+                        + "u00006541\t10:00\t24:00\t101\n"
+                        + "u00006541\t10:00\t10:15\tabc\n"
+                        + "   \n"
+                        + "u00006541\t10:00\t10:15\t101\n";
+
+        // Act
+        PricingLoadReport report = parse(tsv);
+
+        // Assert
+        assertEquals(1, report.getRowsLoaded());
+        assertEquals(1, report.getRowsSkipped());
+        assertEquals(4, report.getRowsRejected());
+        assertEquals("line 2: expected 4 columns but found 3", report.getRejections().get(0));
+        assertEquals("line 4: invalid start time, expected HH:mm", report.getRejections().get(1));
+        assertEquals("line 5: invalid end time, expected HH:mm", report.getRejections().get(2));
+        assertEquals("line 6: invalid price", report.getRejections().get(3));
+    }
+
+    @Test
+    @DisplayName("Should parse prices written with exponents or many digits")
+    void testParseUnusualPrices() throws IOException {
+        // Arrange
+        String tsv =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "a\t10:00\t10:15\t1.5e2\n"
+                        + "b\t10:00\t10:15\t0.1000000000000000000001\n"
+                        + "c\t10:00\t10:15\t.25\n"
+                        + "d\t10:00\t10:15\t-\n";
+
+        // Act
+        PricingLoadReport report = parse(tsv);
+
+        // Assert
+        assertEquals(List.of("a 600 615 150.0", "b 600 615 0.1", "c 600 615 0.25"), rows);
+        assertEquals(1, report.getRowsRejected());
+    }
+
+    @Test
+    @DisplayName("Should trim tabs and carriage returns and reject prices that are not decimals")
+    void testTrimsWhitespaceAndRejectsNonDecimalPrices() throws IOException {
+        // Arrange
+        String tsv =
+                "SkuID\tStartTime\tEndTime\tPrice\r\n"
+                        + "a\t10:00\t10:15\t101\t\r\n"
+                        + "b\t10:00\t10:15\t 7.5 \t\t\n"
+                        + "c\t10:00\t10:15\t10d\n"
+                        + "d\t10:00\t10:15\t1e3f\n"
+                        + "e\t10:00\t10:15\tNaN\n"
+                        + "f\t10:00\t10:15\t-Infinity\n"
+                        + "g\t10:00\t10:15\t0x1p3\n"
+                        + "h\t10:00\t10:15\t1e999\n"
+                        + "i\t10:00\t10:15\t2e\n"
+                        + "\t\t\r\n";
+
+        // Act
+        PricingLoadReport report = parse(tsv);
+
+        // Assert
+        assertEquals(List.of("a 600 615 101.0", "b 600 615 7.5"), rows);
+        assertEquals(7, report.getRowsRejected());
+        assertEquals(1, report.getRowsSkipped());
+        assertEquals("line 4: invalid price", report.getRejections().get(0));
+    }
+
+    @Test
+    @DisplayName("Should handle rows that span buffer refills and reuse SKU instances")
+    void testLargeInput() throws IOException {
+        // Arrange
+        StringBuilder tsv = new StringBuilder("SkuID\tStartTime\tEndTime\tPrice\n");
+        for (int i = 0; i < 50_000; i++) {
+            tsv.append("sku").append(i % 7).append("\t10:00\t10:15\t").append(i).append('\n');
+        }
+
+        // Act
+        PricingLoadReport report = parse(tsv.toString());
+
+        // Assert
+        assertEquals(50_000, report.getRowsLoaded());
+        assertEquals("sku5 600 615 49999.0", rows.get(49_999));
+        assertSame(skuInstances.get(0), skuInstances.get(7));
+    }
+
+    @Test
+    @DisplayName("Should parse window and SKU deletions in delta feeds only")
+    void testParseDeltaDeletions() throws IOException {
+        // Arrange
+        String tsv =
+                "SkuID\tStartTime\tEndTime\tPrice\n"
+                        + "u00006541\t10:00\t10:15\t101\n"
+                        + "u00006541\t10:05\t10:10\tDELETE\n"
+                        + "i00006111\t*\t*\tDELETE\n"
+                        + "i00006111\t*\t10:10\tDELETE";
+        PricingDeltaHandler handler =
+                new PricingDeltaHandler() {
+                    @Override
+                    public void onRow(String skuId, int start, int end, double price) {
+                        rows.add(skuId + " " + start + " " + end + " " + price);
+                    }
+
+                    @Override
+                    public void onDelete(String skuId, int start, int end) {
+                        rows.add(skuId + " " + start + " " + end + " DELETE");
+                    }
+                };
+
+        // Act
+        PricingLoadReport deltaReport =
+                new PricingTsvParser(handler).parse(new ByteArrayInputStream(tsv.getBytes()));
+        List<String> deltaRows = new ArrayList<>(rows);
+        rows.clear();
+        PricingLoadReport fullReport = parse(tsv);
+
+        // Assert
+        assertEquals(
+                List.of(
+                        "u00006541 600 615 101.0",
+                        "u00006541 605 610 DELETE",
+                        "i00006111 -1 -1 DELETE"),
+                deltaRows);
+        assertEquals(3, deltaReport.getRowsLoaded());
+        assertEquals(
+                List.of("line 5: invalid start time, expected HH:mm or *"),
+                deltaReport.getRejections());
+        assertEquals(1, fullReport.getRowsLoaded());
+        assertEquals(3, fullReport.getRowsRejected());
+    }
+
+    private PricingLoadReport parse(String tsv) throws IOException {
+        PricingTsvParser parser =
+                new PricingTsvParser(
+                        (skuId, start, end, price) -> {
+                            rows.add(skuId + " " + start + " " + end + " " + price);
+                            skuInstances.add(skuId);
+                        });
+        return parser.parse(new ByteArrayInputStream(tsv.getBytes()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SkuDictionary Tests")
+class SkuDictionaryTest {
+
+    @Test
+    @DisplayName("Should assign dense ordinals in first-seen order")
+    void testInternAssignsOrdinals() {
+        // Arrange
+        SkuDictionary dictionary = new SkuDictionary();
+
+        // Act
+        int first = dictionary.intern("u00006541");
+        int second = dictionary.intern("i00006111");
+        int again = dictionary.intern("u00006541");
+
+        // Assert
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(0, again);
+        assertEquals(2, dictionary.size());
+        assertEquals("i00006111", dictionary.get(1));
+    }
+
+    @Test
+    @DisplayName("Should find every id after growing and miss unknown ids")
+    void testLookupAfterGrowth() {
+        // Arrange
+        SkuDictionary dictionary = new SkuDictionary();
+        for (int i = 0; i < 10_000; i++) {
+            dictionary.intern("sku" + i);
+        }
+
+        // Act & Assert
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionary.ordinalOf("sku" + i));
+        }
+        assertEquals(-1, dictionary.ordinalOf("nonExistent"));
+    }
+
+    @Test
+    @DisplayName("Should round-trip packed ids and ids kept in the off-heap arena")
+    void testEncodedAndArenaIds() {
+        // Arrange
+        String[] ids = {
+            "u00006541", "A", "-", "zzzzzzzzzz", "Sku_12-x", "u000065410", "u0000654100",
+            "sku 1", "caf\u00e9", "", "a/b", "\ud83d\ude00"
+        };
+        SkuDictionary dictionary = new SkuDictionary();
+
+        // Act
+        for (String id : ids) {
+            dictionary.intern(id);
+        }
+
+        // Assert
+        assertTrue(SkuDictionary.encode("u00006541") >= 0);
+        assertTrue(SkuDictionary.encode("zzzzzzzzzz") >= 0);
+        assertEquals(-1, SkuDictionary.encode("u0000654100"));
+        assertEquals(-1, SkuDictionary.encode("caf\u00e9"));
+        assertEquals(ids.length, dictionary.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], dictionary.get(i));
+            assertEquals(i, dictionary.ordinalOf(ids[i]));
+            assertEquals(i, dictionary.ordinalOf(new StringBuilder(ids[i])));
+        }
+        assertEquals(-1, dictionary.ordinalOf("u00006542"));
+        assertEquals(-1, dictionary.ordinalOf("sku 2"));
+    }
+
+    @Test
+    @DisplayName("Should match ids across dictionaries without rebuilding them")
+    void testOrdinalOfOtherDictionary() {
+        // Arrange
+        SkuDictionary base = new SkuDictionary();
+        SkuDictionary overlay = new SkuDictionary();
+        for (int i = 0; i < 1_000; i++) {
+            base.intern("sku" + i);
+            base.intern("long-sku-id-" + i);
+        }
+        overlay.intern("sku7");
+        overlay.intern("long-sku-id-7");
+        overlay.intern("long-sku-id-unknown");
+        overlay.intern("new");
+
+        // Act & Assert
+        assertEquals(base.ordinalOf("sku7"), base.ordinalOf(overlay, 0));
+        assertEquals(base.ordinalOf("long-sku-id-7"), base.ordinalOf(overlay, 1));
+        assertEquals(-1, base.ordinalOf(overlay, 2));
+        assertEquals(-1, base.ordinalOf(overlay, 3));
+        assertEquals(1, overlay.ordinalOf(base, base.ordinalOf("long-sku-id-7")));
+    }
+}
@@ -0,0 +1,180 @@
+package com.ranitmanik.cafsolsol.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.IntBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SkuPriceIndex Tests")
+class SkuPriceIndexTest {
+
+    @Test
+    @DisplayName("Should let the last row win inside an overlap")
+    void testLastRowWinsOnOverlap() {
+        // Arrange: 10:00-10:15 @ 101, then 10:05-10:10 @ 99
+        SkuPriceIndex index = new SkuPriceIndex();
+        index.resolve(new int[] {600, 605}, new int[] {615, 610}, new double[] {101, 99}, 0, 2);
+
+        // Act & Assert
+        assertNull(priceAt(index, 599));
+        assertEquals(101.0, priceAt(index, 600));
+        assertEquals(99.0, priceAt(index, 605));
+        assertEquals(99.0, priceAt(index, 609));
+        assertEquals(101.0, priceAt(index, 610));
+        assertNull(priceAt(index, 615));
+    }
+
+    @Test
+    @DisplayName("Should keep an earlier row hidden when a later row covers it completely")
+    void testLaterRowHidesEarlierRow() {
+        // Arrange: 10:05-10:10 @ 99, then 10:00-10:15 @ 101
+        SkuPriceIndex index = new SkuPriceIndex();
+
+        // Act
+        int segments =
+                index.resolve(
+                        new int[] {605, 600}, new int[] {610, 615}, new double[] {99, 101}, 0, 2);
+
+        // Assert
+        assertEquals(101.0, priceAt(index, 607));
+        assertEquals(2, segments);
+    }
+
+    @Test
+    @DisplayName("Should return null in gaps and ignore empty windows")
+    void testGapsAndEmptyWindows() {
+        // Arrange
+        SkuPriceIndex index = new SkuPriceIndex();
+
+        // Act
+        index.resolve(
+                new int[] {60, 120, 200}, new int[] {90, 180, 200}, new double[] {1, 2, 3}, 0, 3);
+
+        // Assert
+        assertEquals(1.0, priceAt(index, 89));
+        assertNull(priceAt(index, 100));
+        assertEquals(2.0, priceAt(index, 120));
+        assertNull(priceAt(index, 200));
+        assertEquals(
+                0,
+                new SkuPriceIndex().resolve(new int[] {5}, new int[] {5}, new double[] {1}, 0, 1));
+    }
+
+    @Test
+    @DisplayName("Should resolve only the requested slice of the row columns")
+    void testResolveSlice() {
+        // Arrange: rows 0 and 3 belong to other SKUs
+        int[] starts = {0, 600, 605, 0};
+        int[] ends = {1440, 615, 610, 1440};
+        double[] prices = {1, 101, 99, 2};
+        SkuPriceIndex index = new SkuPriceIndex();
+
+        // Act
+        index.resolve(starts, ends, prices, 1, 3);
+
+        // Assert
+        assertNull(priceAt(index, 0));
+        assertEquals(99.0, priceAt(index, 607));
+    }
+
+    @Test
+    @DisplayName("Should match a linear last-match scan for random windows")
+    void testMatchesLinearScan() {
+        Random random = new Random(42);
+        SkuPriceIndex index = new SkuPriceIndex();
+        for (int round = 0; round < 200; round++) {
+            // Arrange
+            int count = 1 + random.nextInt(40);
+            int[] starts = new int[count];
+            int[] ends = new int[count];
+            double[] prices = new double[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = random.nextInt(1440);
+                ends[i] = starts[i] + random.nextInt(1440 - starts[i] + 1);
+                prices[i] = random.nextInt(5);
+            }
+            int from = index.size();
+            int to = from + index.resolve(starts, ends, prices, 0, count);
+
+            // Act & Assert
+            for (int minute = 0; minute < 1440; minute++) {
+                Double expected = null;
+                for (int i = 0; i < count; i++) {
+                    if (minute >= starts[i] && minute < ends[i]) {
+                        expected = prices[i];
+                    }
+                }
+                assertEquals(expected, priceAt(index, from, to, minute));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should resolve windows that wrap past midnight")
+    void testWindowWrapsPastMidnight() {
+        // Arrange: 22:00-02:00 @ 5, then 01:00-03:00 @ 7
+        SkuPriceIndex index = new SkuPriceIndex();
+
+        // Act
+        index.resolve(new int[] {1320, 60}, new int[] {120, 180}, new double[] {5, 7}, 0, 2);
+
+        // Assert
+        assertEquals(5.0, priceAt(index, 0));
+        assertEquals(7.0, priceAt(index, 60));
+        assertEquals(7.0, priceAt(index, 179));
+        assertNull(priceAt(index, 180));
+        assertNull(priceAt(index, 1319));
+        assertEquals(5.0, priceAt(index, 1320));
+        assertEquals(5.0, priceAt(index, 1439));
+    }
+
+    @Test
+    @DisplayName("Should match a linear last-match scan for random wrapping windows")
+    void testWrappingWindowsMatchLinearScan() {
+        Random random = new Random(7);
+        SkuPriceIndex index = new SkuPriceIndex();
+        for (int round = 0; round < 200; round++) {
+            // Arrange
+            int count = 1 + random.nextInt(40);
+            int[] starts = new int[count];
+            int[] ends = new int[count];
+            double[] prices = new double[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = random.nextInt(1440);
+                ends[i] = random.nextInt(1440);
+                prices[i] = random.nextInt(5);
+            }
+            int from = index.size();
+            int to = from + index.resolve(starts, ends, prices, 0, count);
+
+            // Act & Assert
+            for (int minute = 0; minute < 1440; minute++) {
+                Double expected = null;
+                for (int i = 0; i < count; i++) {
+                    boolean covered =
+                            starts[i] <= ends[i]
+                                    ? minute >= starts[i] && minute < ends[i]
+                                    : minute >= starts[i] || minute < ends[i];
+                    if (covered) {
+                        expected = prices[i];
+                    }
+                }
+                assertEquals(expected, priceAt(index, from, to, minute));
+            }
+        }
+    }
+
+    private static Double priceAt(SkuPriceIndex index, int minute) {
+        return priceAt(index, 0, index.size(), minute);
+    }
+
+    private static Double priceAt(SkuPriceIndex index, int from, int to, int minute) {
+        int segment = SkuPriceIndex.segmentAt(IntBuffer.wrap(index.breaks()), from, to, minute);
+        if (segment < 0 || Double.isNaN(index.prices()[segment])) {
+            return null;
+        }
+        return index.prices()[segment];
+    }
+}